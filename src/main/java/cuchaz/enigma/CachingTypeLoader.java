@@ -1,18 +1,24 @@
 package cuchaz.enigma;
 
-import com.google.common.collect.Maps;
+import com.google.common.base.Throwables;
 import com.strobel.assembler.metadata.Buffer;
 import com.strobel.assembler.metadata.ITypeLoader;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Common cache functions
+ * <p>
+ * Safe for concurrent use: different classes are loaded in parallel, while every class is only loaded once and
+ * threads asking for a class that is currently being loaded wait for that load to finish.
  */
 public abstract class CachingTypeLoader implements ITypeLoader {
 	protected static final byte[] EMPTY_ARRAY = {};
 
-	private final Map<String, byte[]> cache = Maps.newHashMap();
+	private final ConcurrentMap<String, FutureTask<byte[]>> cache = new ConcurrentHashMap<>();
 
 	protected abstract byte[] doLoad(String className);
 
@@ -20,7 +26,7 @@ public abstract class CachingTypeLoader implements ITypeLoader {
 	public boolean tryLoadType(String className, Buffer out) {
 
 		// check the cache
-		byte[] data = this.cache.computeIfAbsent(className, this::doLoad);
+		byte[] data = load(className);
 
 		if (data == EMPTY_ARRAY) {
 			return false;
@@ -32,6 +38,30 @@ public abstract class CachingTypeLoader implements ITypeLoader {
 		return true;
 	}
 
+	private byte[] load(String className) {
+		FutureTask<byte[]> task = this.cache.get(className);
+		if (task == null) {
+			FutureTask<byte[]> newTask = new FutureTask<>(() -> doLoad(className));
+			task = this.cache.putIfAbsent(className, newTask);
+			if (task == null) {
+				task = newTask;
+				task.run();
+			}
+		}
+
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			// don't remember failures, the next request gets to try again
+			this.cache.remove(className, task);
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
 	public void clearCache() {
 		this.cache.clear();
 	}
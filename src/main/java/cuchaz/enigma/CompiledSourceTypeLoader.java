@@ -71,8 +71,6 @@ public class CompiledSourceTypeLoader extends CachingTypeLoader {
 			return null;
 		}
 
-		removeRedundantClassCalls(node);
-
 		ClassWriter writer = new ClassWriter(0);
 
 		ClassVisitor visitor = writer;
@@ -80,7 +78,11 @@ public class CompiledSourceTypeLoader extends CachingTypeLoader {
 			visitor = visitorFunction.apply(visitor);
 		}
 
-		node.accept(visitor);
+		// several class names can fall back to the same node, which may be loaded on other threads
+		synchronized (node) {
+			removeRedundantClassCalls(node);
+			node.accept(visitor);
+		}
 
 		// we have a transformed class!
 		return writer.toByteArray();
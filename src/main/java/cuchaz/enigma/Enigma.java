@@ -15,6 +15,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import cuchaz.enigma.analysis.ClassCache;
 import cuchaz.enigma.analysis.index.JarIndex;
+import cuchaz.enigma.analysis.index.JarIndexSnapshot;
 import cuchaz.enigma.api.EnigmaPlugin;
 import cuchaz.enigma.api.EnigmaPluginContext;
 import cuchaz.enigma.api.service.EnigmaService;
@@ -22,6 +23,7 @@ import cuchaz.enigma.api.service.EnigmaServiceFactory;
 import cuchaz.enigma.api.service.EnigmaServiceType;
 import cuchaz.enigma.api.service.JarIndexerService;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ServiceLoader;
@@ -29,10 +31,20 @@ import java.util.ServiceLoader;
 public class Enigma {
 	private final EnigmaProfile profile;
 	private final EnigmaServices services;
+	private final boolean parallelIndexing;
+	private final Path indexCacheDirectory;
+	private final long classCacheBytes;
+	private final boolean softClassCache;
+	private final boolean compactReferenceIndex;
 
-	private Enigma(EnigmaProfile profile, EnigmaServices services) {
+	private Enigma(EnigmaProfile profile, EnigmaServices services, boolean parallelIndexing, @Nullable Path indexCacheDirectory, long classCacheBytes, boolean softClassCache, boolean compactReferenceIndex) {
 		this.profile = profile;
 		this.services = services;
+		this.parallelIndexing = parallelIndexing;
+		this.indexCacheDirectory = indexCacheDirectory;
+		this.classCacheBytes = classCacheBytes;
+		this.softClassCache = softClassCache;
+		this.compactReferenceIndex = compactReferenceIndex;
 	}
 
 	public static Enigma create() {
@@ -44,8 +56,11 @@ public class Enigma {
 	}
 
 	public EnigmaProject openJar(Path path, ProgressListener progress) throws IOException {
-		ClassCache classCache = ClassCache.of(path);
-		JarIndex jarIndex = classCache.index(progress);
+		ClassCache classCache = ClassCache.of(path, classCacheBytes, softClassCache);
+		JarIndex jarIndex = indexJar(path, classCache, progress);
+		if (compactReferenceIndex) {
+			jarIndex.getReferenceIndex().compact();
+		}
 
 		services.get(JarIndexerService.TYPE).ifPresent(indexer -> {
 			indexer.acceptJar(classCache, jarIndex);
@@ -54,6 +69,34 @@ public class Enigma {
 		return new EnigmaProject(this, classCache, jarIndex);
 	}
 
+	private JarIndex indexJar(Path path, ClassCache classCache, ProgressListener progress) throws IOException {
+		if (indexCacheDirectory == null) {
+			return classCache.index(progress, parallelIndexing);
+		}
+
+		Path snapshotPath = JarIndexSnapshot.resolve(indexCacheDirectory, path);
+		try {
+			progress.init(1, "Reading index snapshot");
+			JarIndex jarIndex = JarIndexSnapshot.read(snapshotPath);
+			if (jarIndex != null) {
+				return jarIndex;
+			}
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to read index snapshot " + snapshotPath + ", indexing jar instead");
+			e.printStackTrace();
+		}
+
+		JarIndex jarIndex = classCache.index(progress, parallelIndexing);
+		try {
+			JarIndexSnapshot.write(jarIndex, snapshotPath);
+		} catch (IOException e) {
+			System.err.println("WARNING: Failed to write index snapshot " + snapshotPath);
+			e.printStackTrace();
+		}
+
+		return jarIndex;
+	}
+
 	public EnigmaProfile getProfile() {
 		return profile;
 	}
@@ -65,6 +108,11 @@ public class Enigma {
 	public static class Builder {
 		private EnigmaProfile profile = EnigmaProfile.EMPTY;
 		private Iterable<EnigmaPlugin> plugins = ServiceLoader.load(EnigmaPlugin.class);
+		private boolean parallelIndexing = false;
+		private Path indexCacheDirectory;
+		private long classCacheBytes = ClassCache.DEFAULT_NODE_CACHE_BYTES;
+		private boolean softClassCache = ClassCache.DEFAULT_SOFT_NODES;
+		private boolean compactReferenceIndex = false;
 
 		private Builder() {
 		}
@@ -81,6 +129,48 @@ public class Enigma {
 			return this;
 		}
 
+		public Builder setParallelIndexing(boolean parallelIndexing) {
+			this.parallelIndexing = parallelIndexing;
+			return this;
+		}
+
+		/**
+		 * Sets the directory in which processed jar indexes are cached, keyed by the hash of the jar. If unset, jars
+		 * are always indexed from scratch.
+		 */
+		public Builder setIndexCacheDirectory(@Nullable Path indexCacheDirectory) {
+			this.indexCacheDirectory = indexCacheDirectory;
+			return this;
+		}
+
+		/**
+		 * Sets roughly how much memory the parsed classes of an opened jar may take up before the least recently used
+		 * ones are evicted.
+		 */
+		public Builder setClassCacheSize(long classCacheBytes) {
+			Preconditions.checkArgument(classCacheBytes >= 0, "class cache size cannot be negative");
+			this.classCacheBytes = classCacheBytes;
+			return this;
+		}
+
+		/**
+		 * Sets whether the parsed classes of an opened jar are softly referenced, so that they can also be reclaimed
+		 * when the heap runs low.
+		 */
+		public Builder setSoftClassCache(boolean softClassCache) {
+			this.softClassCache = softClassCache;
+			return this;
+		}
+
+		/**
+		 * Sets whether the reference index of an opened jar is compacted once indexing is done, trading slightly
+		 * slower reference queries for a much smaller index.
+		 */
+		public Builder setCompactReferenceIndex(boolean compactReferenceIndex) {
+			this.compactReferenceIndex = compactReferenceIndex;
+			return this;
+		}
+
 		public Enigma build() {
 			PluginContext pluginContext = new PluginContext(profile);
 			for (EnigmaPlugin plugin : plugins) {
@@ -88,7 +178,7 @@ public class Enigma {
 			}
 
 			EnigmaServices services = pluginContext.buildServices();
-			return new Enigma(profile, services);
+			return new Enigma(profile, services, parallelIndexing, indexCacheDirectory, classCacheBytes, softClassCache, compactReferenceIndex);
 		}
 	}
 
@@ -1,7 +1,8 @@
 package cuchaz.enigma;
 
 import com.google.common.base.Functions;
-import com.strobel.assembler.metadata.ITypeLoader;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.decompiler.DecompilerSettings;
 import com.strobel.decompiler.languages.java.ast.CompilationUnit;
@@ -9,6 +10,7 @@ import cuchaz.enigma.analysis.ClassCache;
 import cuchaz.enigma.analysis.EntryReference;
 import cuchaz.enigma.analysis.index.JarIndex;
 import cuchaz.enigma.bytecode.translators.SourceFixVisitor;
+import cuchaz.enigma.bytecode.translators.TranslationCache;
 import cuchaz.enigma.bytecode.translators.TranslationClassVisitor;
 import cuchaz.enigma.translation.Translator;
 import cuchaz.enigma.translation.mapping.EntryMapping;
@@ -20,18 +22,35 @@ import cuchaz.enigma.translation.representation.entry.ClassEntry;
 import cuchaz.enigma.translation.representation.entry.Entry;
 import cuchaz.enigma.translation.representation.entry.LocalVariableEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
+import cuchaz.enigma.utils.OrderedPipeline;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 
+import javax.annotation.Nullable;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -142,6 +161,7 @@ public class EnigmaProject {
 	public JarExport exportRemappedJar(ProgressListener progress) {
 		Collection<ClassEntry> classEntries = jarIndex.getEntryIndex().getClasses();
 		Translator deobfuscator = mapper.getDeobfuscator();
+		TranslationCache translationCache = new TranslationCache(deobfuscator);
 
 		AtomicInteger count = new AtomicInteger();
 		progress.init(classEntries.size(), "Deobfuscating classes...");
@@ -151,10 +171,10 @@ public class EnigmaProject {
 					ClassEntry translatedEntry = deobfuscator.translate(entry);
 					progress.step(count.getAndIncrement(), translatedEntry.toString());
 
-					ClassNode node = classCache.getClassNode(entry.getFullName());
-					if (node != null) {
+					byte[] translated = translateClass(entry, translationCache);
+					if (translated != null) {
 						ClassNode translatedNode = new ClassNode();
-						node.accept(new TranslationClassVisitor(deobfuscator, Opcodes.ASM5, translatedNode));
+						new ClassReader(translated).accept(translatedNode, 0);
 						return translatedNode;
 					}
 
@@ -166,6 +186,52 @@ public class EnigmaProject {
 		return new JarExport(jarIndex, compiled);
 	}
 
+	/**
+	 * Translates the jar and writes it to the given path as it goes. Unlike {@link #exportRemappedJar}, only the
+	 * classes currently being translated or waiting to be written are held in memory.
+	 */
+	public void writeRemappedJar(Path path, ProgressListener progress) throws IOException {
+		List<ClassEntry> classEntries = jarIndex.getEntryIndex().getClasses().stream()
+				.sorted(Comparator.comparing(ClassEntry::getFullName))
+				.collect(Collectors.toList());
+		Translator deobfuscator = mapper.getDeobfuscator();
+		TranslationCache translationCache = new TranslationCache(deobfuscator);
+
+		progress.init(classEntries.size(), "Deobfuscating classes...");
+
+		int threads = OrderedPipeline.defaultThreads();
+
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(path))) {
+			AtomicInteger count = new AtomicInteger();
+
+			OrderedPipeline.run(classEntries, entry -> {
+				byte[] translated = translateClass(entry, translationCache);
+				if (translated == null) {
+					return null;
+				}
+
+				return new TranslatedClass(translationCache.translateClass(entry.getFullName()), translated);
+			}, (entry, translated) -> {
+				progress.step(count.getAndIncrement(), entry.toString());
+
+				if (translated != null) {
+					out.putNextEntry(new JarEntry(translated.name + ".class"));
+					out.write(translated.bytes);
+					out.closeEntry();
+				}
+			}, threads, threads * 4);
+		}
+	}
+
+	/**
+	 * Remaps a single class directly from its bytes, bypassing the class node cache. Translated classes are only
+	 * needed once, so keeping their trees around would just evict the nodes the rest of Enigma is using.
+	 */
+	@Nullable
+	private byte[] translateClass(ClassEntry entry, TranslationCache translationCache) {
+		return classCache.transformClass(entry.getFullName(), writer -> new TranslationClassVisitor(translationCache, Opcodes.ASM5, writer));
+	}
+
 	public static final class JarExport {
 		private final JarIndex jarIndex;
 		private final Map<String, ClassNode> compiled;
@@ -196,27 +262,16 @@ public class EnigmaProject {
 			}
 		}
 
+		/**
+		 * Decompiles every class into memory, to be written all at once. {@link #writeSources} writes the sources while
+		 * decompiling instead, and is better suited to large jars.
+		 */
 		public SourceExport decompile(ProgressListener progress) {
-			Collection<ClassNode> classes = this.compiled.values().stream()
-					.filter(classNode -> classNode.name.indexOf('$') == -1)
-					.collect(Collectors.toList());
+			Collection<ClassNode> classes = getOuterClasses();
 
 			progress.init(classes.size(), "Decompiling classes...");
 
-			//create a common instance outside the loop as mappings shouldn't be changing while this is happening
-			CompiledSourceTypeLoader typeLoader = new CompiledSourceTypeLoader(this.compiled::get);
-			typeLoader.addVisitor(visitor -> new SourceFixVisitor(Opcodes.ASM5, visitor, jarIndex));
-
-			//synchronized to make sure the parallelStream doesn't CME with the cache
-			ITypeLoader synchronizedTypeLoader = new SynchronizedTypeLoader(typeLoader);
-
-			MetadataSystem metadataSystem = new NoRetryMetadataSystem(synchronizedTypeLoader);
-
-			//ensures methods are loaded on classload and prevents race conditions
-			metadataSystem.setEagerMethodLoadingEnabled(true);
-
-			DecompilerSettings settings = SourceProvider.createSettings();
-			SourceProvider sourceProvider = new SourceProvider(settings, synchronizedTypeLoader, metadataSystem);
+			SourceProvider sourceProvider = createSourceProvider();
 
 			AtomicInteger count = new AtomicInteger();
 
@@ -232,6 +287,120 @@ public class EnigmaProject {
 			return new SourceExport(decompiled);
 		}
 
+		/**
+		 * Decompiles the classes and writes every source as soon as it is ready, into a directory or, if the path
+		 * names a zip or jar file, into that archive. Only the sources currently being decompiled are held in memory.
+		 *
+		 * @return how many nanoseconds each class took to decompile, slowest first
+		 */
+		public Map<String, Long> writeSources(Path path, ProgressListener progress) throws IOException {
+			Collection<ClassNode> classes = getOuterClasses();
+
+			progress.init(classes.size(), "Decompiling classes...");
+
+			SourceProvider sourceProvider = createSourceProvider();
+
+			boolean archive = isArchive(path);
+			if (archive) {
+				Files.deleteIfExists(path);
+			}
+
+			ExecutorService executor = Executors.newFixedThreadPool(OrderedPipeline.defaultThreads(), new ThreadFactoryBuilder()
+					.setDaemon(true)
+					.setNameFormat("decompiler-worker-%d")
+					.build()
+			);
+
+			try (FileSystem archiveFileSystem = archive ? openArchive(path) : null) {
+				Path root = archiveFileSystem != null ? archiveFileSystem.getPath("/") : path;
+
+				// workers write their source before finishing, so at most one source per worker is buffered
+				CompletionService<ClassTiming> completionService = new ExecutorCompletionService<>(executor);
+				for (ClassNode node : classes) {
+					completionService.submit(() -> {
+						long start = System.nanoTime();
+						ClassSource source = new ClassSource(node.name, decompileClass(node, sourceProvider));
+						long time = System.nanoTime() - start;
+
+						source.writeTo(source.resolvePath(root));
+						return new ClassTiming(node.name, time);
+					});
+				}
+
+				List<ClassTiming> timings = new ArrayList<>(classes.size());
+				for (int i = 0; i < classes.size(); i++) {
+					ClassTiming timing = takeCompleted(completionService);
+					progress.step(i, timing.name);
+					timings.add(timing);
+				}
+
+				timings.sort(Comparator.comparingLong((ClassTiming timing) -> timing.nanos).reversed());
+
+				Map<String, Long> result = new LinkedHashMap<>();
+				for (ClassTiming timing : timings) {
+					result.put(timing.name, timing.nanos);
+				}
+				return result;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		private static ClassTiming takeCompleted(CompletionService<ClassTiming> completionService) throws IOException {
+			try {
+				return completionService.take().get();
+			} catch (ExecutionException e) {
+				Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+				Throwables.throwIfUnchecked(e.getCause());
+				throw new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while decompiling", e);
+			}
+		}
+
+		/**
+		 * Whether {@link #writeSources} writes to the given path as a zip archive rather than a directory.
+		 */
+		public static boolean isArchive(Path path) {
+			Path fileName = path.getFileName();
+			if (fileName == null) {
+				return false;
+			}
+			String name = fileName.toString().toLowerCase(Locale.ROOT);
+			return name.endsWith(".zip") || name.endsWith(".jar");
+		}
+
+		private static FileSystem openArchive(Path path) throws IOException {
+			URI uri = URI.create("jar:" + path.toUri());
+			// without a temp file, the zip file system keeps every written entry in memory until it is closed
+			Map<String, String> env = new HashMap<>();
+			env.put("create", "true");
+			env.put("useTempFile", "true");
+			return FileSystems.newFileSystem(uri, env);
+		}
+
+		private Collection<ClassNode> getOuterClasses() {
+			return this.compiled.values().stream()
+					.filter(classNode -> classNode.name.indexOf('$') == -1)
+					.collect(Collectors.toList());
+		}
+
+		private SourceProvider createSourceProvider() {
+			//create a common instance outside the loop as mappings shouldn't be changing while this is happening
+			CompiledSourceTypeLoader typeLoader = new CompiledSourceTypeLoader(this.compiled::get);
+			typeLoader.addVisitor(visitor -> new SourceFixVisitor(Opcodes.ASM5, visitor, jarIndex));
+
+			//the caching type loader is safe to share between the parallel workers
+			MetadataSystem metadataSystem = new NoRetryMetadataSystem(typeLoader);
+
+			//ensures methods are loaded on classload and prevents race conditions
+			metadataSystem.setEagerMethodLoadingEnabled(true);
+
+			DecompilerSettings settings = SourceProvider.createSettings();
+			return new SourceProvider(settings, typeLoader, metadataSystem);
+		}
+
 		private String decompileClass(ClassNode translatedNode, SourceProvider sourceProvider) {
 			CompilationUnit sourceTree = sourceProvider.getSources(translatedNode.name);
 
@@ -262,6 +431,26 @@ public class EnigmaProject {
 		}
 	}
 
+	private static class ClassTiming {
+		private final String name;
+		private final long nanos;
+
+		ClassTiming(String name, long nanos) {
+			this.name = name;
+			this.nanos = nanos;
+		}
+	}
+
+	private static class TranslatedClass {
+		private final String name;
+		private final byte[] bytes;
+
+		TranslatedClass(String name, byte[] bytes) {
+			this.name = name;
+			this.bytes = bytes;
+		}
+	}
+
 	private static class ClassSource {
 		private final String name;
 		private final String source;
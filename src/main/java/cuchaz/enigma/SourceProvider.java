@@ -47,6 +47,19 @@ public class SourceProvider {
 		return settings;
 	}
 
+	/**
+	 * @return a key identifying the settings that influence the decompiled source, for caching decompiled classes
+	 */
+	public String getSettingsKey() {
+		return String.format("merge=%b,imports=%b,typeArguments=%b,lineNumbers=%b,synthetic=%b",
+				settings.getMergeVariables(),
+				settings.getForceExplicitImports(),
+				settings.getForceExplicitTypeArguments(),
+				settings.getShowDebugLineNumbers(),
+				settings.getShowSyntheticMembers()
+		);
+	}
+
 	public CompilationUnit getSources(String name) {
 		TypeReference type = metadataSystem.lookupType(name);
 		if (type == null) {
@@ -1,61 +1,93 @@
 package cuchaz.enigma.analysis;
 
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import cuchaz.enigma.CompiledSource;
 import cuchaz.enigma.ProgressListener;
 import cuchaz.enigma.analysis.index.JarIndex;
+import cuchaz.enigma.bytecode.FanOutClassVisitor;
 import cuchaz.enigma.bytecode.translators.LocalVariableFixVisitor;
+import cuchaz.enigma.utils.Utils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+/**
+ * Gives access to the classes of a jar. Parsed class nodes are kept in a cache bounded by their estimated memory
+ * footprint, which defaults to the {@code enigma.classCacheMegabytes} system property. With
+ * {@code enigma.classCacheSoftValues} set, the cached nodes are also softly referenced, so the garbage collector may
+ * reclaim them under memory pressure. Pinned classes are held strongly outside the budget until they are unpinned.
+ */
 public final class ClassCache implements AutoCloseable, CompiledSource {
-	private final FileSystem fileSystem;
+	public static final long DEFAULT_NODE_CACHE_BYTES = Utils.getSystemPropertyAsInt("enigma.classCacheMegabytes", 64) * 1024L * 1024L;
+	public static final boolean DEFAULT_SOFT_NODES = Utils.getSystemPropertyAsBoolean("enigma.classCacheSoftValues", false);
+
+	// rough costs of the objects a parsed class node is made of, including their names and descriptors
+	private static final int CLASS_BYTES = 512;
+	private static final int MEMBER_BYTES = 160;
+	private static final int INSTRUCTION_BYTES = 48;
+	private static final int TRY_CATCH_BYTES = 64;
+	private static final int LOCAL_VARIABLE_BYTES = 96;
+
+	private static final int BATCHES_PER_THREAD = 4;
+
+	private final JarSource jarSource;
 	private final ImmutableSet<String> classNames;
 
-	private final Cache<String, ClassNode> nodeCache = CacheBuilder.newBuilder()
-			.maximumSize(128)
-			.expireAfterAccess(1, TimeUnit.MINUTES)
-			.build();
+	private final Cache<String, ClassNode> nodeCache;
+
+	private volatile ImmutableMap<String, ClassNode> pinnedNodes = ImmutableMap.of();
+
+	private ClassCache(JarSource jarSource, long maxNodeBytes, boolean softNodes) {
+		this.jarSource = jarSource;
+		this.classNames = jarSource.getClassNames();
 
-	private ClassCache(FileSystem fileSystem, ImmutableSet<String> classNames) {
-		this.fileSystem = fileSystem;
-		this.classNames = classNames;
+		CacheBuilder<String, ClassNode> builder = CacheBuilder.newBuilder()
+				.maximumWeight(maxNodeBytes)
+				.weigher((String name, ClassNode node) -> estimateSize(node))
+				.recordStats();
+		if (softNodes) {
+			builder.softValues();
+		}
+		this.nodeCache = builder.build();
 	}
 
 	public static ClassCache of(Path jarPath) throws IOException {
-		FileSystem fileSystem = FileSystems.newFileSystem(jarPath, null);
-		ImmutableSet<String> classNames = collectClassNames(fileSystem);
-
-		return new ClassCache(fileSystem, classNames);
+		return of(jarPath, DEFAULT_NODE_CACHE_BYTES, DEFAULT_SOFT_NODES);
 	}
 
-	private static ImmutableSet<String> collectClassNames(FileSystem fileSystem) throws IOException {
-		ImmutableSet.Builder<String> classNames = ImmutableSet.builder();
-		for (Path root : fileSystem.getRootDirectories()) {
-			Files.walk(root).map(Path::toString)
-					.forEach(path -> {
-						if (path.endsWith(".class")) {
-							String name = path.substring(1, path.length() - ".class".length());
-							classNames.add(name);
-						}
-					});
+	public static ClassCache of(Path jarPath, long maxNodeBytes, boolean softNodes) throws IOException {
+		JarSource jarSource = MappedJarSource.open(jarPath);
+		if (jarSource == null) {
+			jarSource = FileSystemJarSource.open(jarPath);
 		}
 
-		return classNames.build();
+		return new ClassCache(jarSource, maxNodeBytes, softNodes);
 	}
 
 	@Nullable
@@ -65,6 +97,11 @@ public final class ClassCache implements AutoCloseable, CompiledSource {
 			return null;
 		}
 
+		ClassNode pinned = pinnedNodes.get(name);
+		if (pinned != null) {
+			return pinned;
+		}
+
 		try {
 			return nodeCache.get(name, () -> parseNode(name));
 		} catch (ExecutionException e) {
@@ -72,6 +109,54 @@ public final class ClassCache implements AutoCloseable, CompiledSource {
 		}
 	}
 
+	/**
+	 * Keeps the nodes of the given classes in memory, regardless of the cache budget, and releases the previously
+	 * pinned ones. Released nodes go back into the regular cache.
+	 */
+	public synchronized void setPinned(Collection<String> names) {
+		ImmutableMap<String, ClassNode> previous = pinnedNodes;
+
+		ImmutableMap.Builder<String, ClassNode> pinned = ImmutableMap.builder();
+		for (String name : ImmutableSet.copyOf(names)) {
+			ClassNode node = previous.containsKey(name) ? previous.get(name) : getClassNode(name);
+			if (node != null) {
+				pinned.put(name, node);
+			}
+		}
+		pinnedNodes = pinned.build();
+
+		for (Map.Entry<String, ClassNode> entry : previous.entrySet()) {
+			if (!pinnedNodes.containsKey(entry.getKey())) {
+				nodeCache.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	public Set<String> getPinned() {
+		return pinnedNodes.keySet();
+	}
+
+	public CacheStats getNodeCacheStats() {
+		return nodeCache.stats();
+	}
+
+	public long getNodeCacheSize() {
+		return nodeCache.size();
+	}
+
+	static int estimateSize(ClassNode node) {
+		long size = CLASS_BYTES + (long) node.fields.size() * MEMBER_BYTES;
+		for (MethodNode method : node.methods) {
+			size += MEMBER_BYTES;
+			size += (long) method.instructions.size() * INSTRUCTION_BYTES;
+			size += (long) method.tryCatchBlocks.size() * TRY_CATCH_BYTES;
+			if (method.localVariables != null) {
+				size += (long) method.localVariables.size() * LOCAL_VARIABLE_BYTES;
+			}
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
 	private ClassNode parseNode(String name) throws IOException {
 		ClassReader reader = getReader(name);
 
@@ -83,44 +168,150 @@ public final class ClassCache implements AutoCloseable, CompiledSource {
 		return node;
 	}
 
+	/**
+	 * Streams the class straight from its bytes through the given transformer into a {@link ClassWriter}, without
+	 * building or caching a {@link ClassNode}. The writer builds a fresh constant pool rather than sharing the one of
+	 * the original class: transformers visit every method, so ASM could never copy a method body verbatim anyway, and
+	 * a shared pool would carry every original name into the output.
+	 *
+	 * @return the transformed class bytes, or {@code null} if the class is not in the jar
+	 */
+	@Nullable
+	public byte[] transformClass(String name, Function<ClassVisitor, ClassVisitor> transformer) {
+		if (!classNames.contains(name)) {
+			return null;
+		}
+
+		try {
+			ClassReader reader = getReader(name);
+			ClassWriter writer = new ClassWriter(0);
+
+			reader.accept(new LocalVariableFixVisitor(Opcodes.ASM5, transformer.apply(writer)), 0);
+
+			return writer.toByteArray();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	private ClassReader getReader(String name) throws IOException {
-		Path path = fileSystem.getPath(name + ".class");
-		byte[] bytes = Files.readAllBytes(path);
-		return new ClassReader(bytes);
+		return new ClassReader(jarSource.readClass(name));
 	}
 
 	public int getClassCount() {
 		return classNames.size();
 	}
 
+	public ImmutableSet<String> getClassNames() {
+		return classNames;
+	}
+
 	public void visit(Supplier<ClassVisitor> visitorSupplier, int readFlags) {
+		visit(classNames, visitorSupplier, readFlags);
+	}
+
+	public void visit(Collection<String> classNames, Supplier<ClassVisitor> visitorSupplier, int readFlags) {
 		for (String className : classNames) {
-			ClassVisitor visitor = visitorSupplier.get();
+			visitClass(className, visitorSupplier.get(), readFlags);
+		}
+	}
 
-			ClassNode cached = nodeCache.getIfPresent(className);
-			if (cached != null) {
-				cached.accept(visitor);
-				continue;
-			}
+	/**
+	 * Visits every class once, with all visitors of a group fed from a single read of the class. The read flags must
+	 * suit every visitor, since they share the read.
+	 *
+	 * @see FanOutClassVisitor
+	 */
+	public void visitCombined(List<Supplier<ClassVisitor>> visitorSuppliers, int readFlags) {
+		visitCombined(classNames, visitorSuppliers, readFlags);
+	}
+
+	public void visitCombined(Collection<String> classNames, List<Supplier<ClassVisitor>> visitorSuppliers, int readFlags) {
+		visit(classNames, combine(visitorSuppliers), readFlags);
+	}
+
+	public void visitParallel(Supplier<ClassVisitor> visitorSupplier, int readFlags) {
+		visitParallel(classNames, visitorSupplier, readFlags, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Visits the classes on the given executor and waits until all of them have been visited. The supplier is called
+	 * once per class, from the worker threads, so each class gets its own visitor; anything the visitors share must be
+	 * thread-safe. The classes are visited in no particular order.
+	 */
+	public void visitParallel(Collection<String> classNames, Supplier<ClassVisitor> visitorSupplier, int readFlags, Executor executor) {
+		List<String> names = ImmutableList.copyOf(classNames);
+		if (names.isEmpty()) {
+			return;
+		}
+
+		int batchCount = Runtime.getRuntime().availableProcessors() * BATCHES_PER_THREAD;
+		int batchSize = Math.max(1, (names.size() + batchCount - 1) / batchCount);
 
-			try {
-				ClassReader reader = getReader(className);
-				reader.accept(visitor, readFlags);
-			} catch (IOException e) {
-				System.out.println("Failed to visit class " + className);
-				e.printStackTrace();
+		List<CompletableFuture<Void>> batches = new ArrayList<>();
+		for (List<String> batch : Lists.partition(names, batchSize)) {
+			batches.add(CompletableFuture.runAsync(() -> visit(batch, visitorSupplier, readFlags), executor));
+		}
+
+		try {
+			CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw e;
+		}
+	}
+
+	public void visitCombinedParallel(List<Supplier<ClassVisitor>> visitorSuppliers, int readFlags, Executor executor) {
+		visitParallel(classNames, combine(visitorSuppliers), readFlags, executor);
+	}
+
+	private static Supplier<ClassVisitor> combine(List<Supplier<ClassVisitor>> visitorSuppliers) {
+		List<Supplier<ClassVisitor>> suppliers = ImmutableList.copyOf(visitorSuppliers);
+		return () -> {
+			List<ClassVisitor> visitors = new ArrayList<>(suppliers.size());
+			for (Supplier<ClassVisitor> supplier : suppliers) {
+				visitors.add(supplier.get());
 			}
+			return FanOutClassVisitor.of(visitors);
+		};
+	}
+
+	private void visitClass(String className, ClassVisitor visitor, int readFlags) {
+		// asMap lookups skip the cache statistics, which should only reflect node requests
+		ClassNode cached = pinnedNodes.get(className);
+		if (cached == null) {
+			cached = nodeCache.asMap().get(className);
+		}
+		if (cached != null) {
+			cached.accept(visitor);
+			return;
+		}
+
+		try {
+			ClassReader reader = getReader(className);
+			reader.accept(visitor, readFlags);
+		} catch (IOException e) {
+			System.out.println("Failed to visit class " + className);
+			e.printStackTrace();
 		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		this.fileSystem.close();
+		this.jarSource.close();
 	}
 
 	public JarIndex index(ProgressListener progress) {
+		return index(progress, false);
+	}
+
+	public JarIndex index(ProgressListener progress, boolean parallel) {
 		JarIndex index = JarIndex.empty();
-		index.indexJar(this, progress);
+		if (parallel) {
+			index.indexJarParallel(this, progress);
+		} else {
+			index.indexJar(this, progress);
+		}
 		return index;
 	}
 }
@@ -0,0 +1,59 @@
+package cuchaz.enigma.analysis;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads classes through a zip {@link FileSystem}. Used for jars that {@link MappedJarSource} cannot map.
+ */
+final class FileSystemJarSource implements JarSource {
+	private final FileSystem fileSystem;
+	private final ImmutableSet<String> classNames;
+
+	private FileSystemJarSource(FileSystem fileSystem, ImmutableSet<String> classNames) {
+		this.fileSystem = fileSystem;
+		this.classNames = classNames;
+	}
+
+	static FileSystemJarSource open(Path jarPath) throws IOException {
+		FileSystem fileSystem = FileSystems.newFileSystem(jarPath, null);
+		ImmutableSet<String> classNames = collectClassNames(fileSystem);
+
+		return new FileSystemJarSource(fileSystem, classNames);
+	}
+
+	private static ImmutableSet<String> collectClassNames(FileSystem fileSystem) throws IOException {
+		ImmutableSet.Builder<String> classNames = ImmutableSet.builder();
+		for (Path root : fileSystem.getRootDirectories()) {
+			Files.walk(root).map(Path::toString)
+					.forEach(path -> {
+						if (path.endsWith(".class")) {
+							String name = path.substring(1, path.length() - ".class".length());
+							classNames.add(name);
+						}
+					});
+		}
+
+		return classNames.build();
+	}
+
+	@Override
+	public ImmutableSet<String> getClassNames() {
+		return classNames;
+	}
+
+	@Override
+	public byte[] readClass(String name) throws IOException {
+		return Files.readAllBytes(fileSystem.getPath(name + ".class"));
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileSystem.close();
+	}
+}
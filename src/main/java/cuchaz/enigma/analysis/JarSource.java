@@ -0,0 +1,15 @@
+package cuchaz.enigma.analysis;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Gives {@link ClassCache} access to the raw class files of a jar.
+ */
+interface JarSource extends Closeable {
+	ImmutableSet<String> getClassNames();
+
+	byte[] readClass(String name) throws IOException;
+}
@@ -0,0 +1,259 @@
+package cuchaz.enigma.analysis;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads classes from a jar that is memory-mapped once. The central directory is parsed up front into a table of
+ * class name to data offset, so reading a class is a single copy out of the mapping for stored entries, or a single
+ * inflate for deflated entries. Inflaters and input buffers are pooled per thread.
+ * <p>
+ * Only plain zip files up to 2 GB are supported. {@link #open} returns {@code null} for anything else (ZIP64,
+ * spanned archives), and the caller falls back to {@link FileSystemJarSource}.
+ * <p>
+ * Java offers no way to unmap a file, so closing only drops the mapping, which is released once it is garbage
+ * collected. Until then the jar stays locked on platforms that lock mapped files, such as Windows.
+ */
+final class MappedJarSource implements JarSource {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+	private static final ThreadLocal<byte[]> INPUT_BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+	private final FileChannel channel;
+	private volatile MappedByteBuffer buffer;
+
+	private final ImmutableSet<String> classNames;
+	private final Map<String, Integer> classIndices;
+
+	private final int[] dataOffsets;
+	private final int[] compressedSizes;
+	private final int[] sizes;
+	private final byte[] methods;
+
+	private MappedJarSource(FileChannel channel, MappedByteBuffer buffer, ImmutableSet<String> classNames, Map<String, Integer> classIndices, int[] dataOffsets, int[] compressedSizes, int[] sizes, byte[] methods) {
+		this.channel = channel;
+		this.buffer = buffer;
+		this.classNames = classNames;
+		this.classIndices = classIndices;
+		this.dataOffsets = dataOffsets;
+		this.compressedSizes = compressedSizes;
+		this.sizes = sizes;
+		this.methods = methods;
+	}
+
+	@Nullable
+	static MappedJarSource open(Path jarPath) throws IOException {
+		FileChannel channel = FileChannel.open(jarPath, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE || size < END_SIZE) {
+				channel.close();
+				return null;
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			MappedJarSource source = parse(channel, buffer);
+			if (source == null) {
+				channel.close();
+			}
+			return source;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Nullable
+	private static MappedJarSource parse(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+		int end = findEnd(buffer);
+		if (end < 0) {
+			return null;
+		}
+
+		int entryCount = buffer.getShort(end + 10) & 0xFFFF;
+		long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+		if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL || buffer.getShort(end + 4) != 0) {
+			// ZIP64 or spanned archive
+			return null;
+		}
+
+		ImmutableSet.Builder<String> classNames = ImmutableSet.builder();
+		Map<String, Integer> classIndices = new HashMap<>(entryCount * 2);
+		int[] dataOffsets = new int[entryCount];
+		int[] compressedSizes = new int[entryCount];
+		int[] sizes = new int[entryCount];
+		byte[] methods = new byte[entryCount];
+
+		int position = (int) directoryOffset;
+		int classCount = 0;
+		for (int i = 0; i < entryCount; i++) {
+			if (buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at " + position);
+			}
+
+			int method = buffer.getShort(position + 10) & 0xFFFF;
+			long compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+			long size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+			int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+			int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+			int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+			long localOffset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+
+			String path = readName(buffer, position + CENTRAL_HEADER_SIZE, nameLength);
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+			if (!path.endsWith(".class")) {
+				continue;
+			}
+
+			if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) {
+				return null;
+			}
+
+			if (method != METHOD_STORED && method != METHOD_DEFLATED) {
+				throw new ZipException("Unsupported compression method " + method + " for " + path);
+			}
+
+			String name = path.substring(0, path.length() - ".class".length());
+			if (classIndices.containsKey(name)) {
+				continue;
+			}
+
+			classNames.add(name);
+			classIndices.put(name, classCount);
+
+			dataOffsets[classCount] = findData(buffer, (int) localOffset);
+			compressedSizes[classCount] = (int) compressedSize;
+			sizes[classCount] = (int) size;
+			methods[classCount] = (byte) method;
+			classCount++;
+		}
+
+		return new MappedJarSource(channel, buffer, classNames.build(), classIndices, dataOffsets, compressedSizes, sizes, methods);
+	}
+
+	private static int findEnd(ByteBuffer buffer) {
+		int limit = Math.max(0, buffer.capacity() - END_SIZE - MAX_COMMENT_SIZE);
+		for (int position = buffer.capacity() - END_SIZE; position >= limit; position--) {
+			if (buffer.getInt(position) == END_SIGNATURE) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	private static int findData(ByteBuffer buffer, int localOffset) throws ZipException {
+		if (buffer.getInt(localOffset) != LOCAL_HEADER_SIGNATURE) {
+			throw new ZipException("Invalid local header at " + localOffset);
+		}
+
+		int nameLength = buffer.getShort(localOffset + 26) & 0xFFFF;
+		int extraLength = buffer.getShort(localOffset + 28) & 0xFFFF;
+		return localOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+	}
+
+	private static String readName(ByteBuffer buffer, int position, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public ImmutableSet<String> getClassNames() {
+		return classNames;
+	}
+
+	@Override
+	public byte[] readClass(String name) throws IOException {
+		Integer index = classIndices.get(name);
+		if (index == null) {
+			throw new IOException("No such class " + name);
+		}
+
+		MappedByteBuffer buffer = this.buffer;
+		if (buffer == null) {
+			throw new IOException("Jar source is closed");
+		}
+
+		ByteBuffer view = buffer.duplicate();
+		view.position(dataOffsets[index]);
+
+		byte[] bytes = new byte[sizes[index]];
+		if (methods[index] == METHOD_STORED) {
+			view.get(bytes);
+		} else {
+			inflate(view, compressedSizes[index], bytes, name);
+		}
+
+		return bytes;
+	}
+
+	private static void inflate(ByteBuffer view, int compressedSize, byte[] bytes, String name) throws IOException {
+		byte[] input = INPUT_BUFFERS.get();
+		if (input.length < compressedSize + 1) {
+			input = new byte[Math.max(compressedSize + 1, input.length * 2)];
+			INPUT_BUFFERS.set(input);
+		}
+
+		view.get(input, 0, compressedSize);
+		// a nowrap inflater may need one extra byte past the end of the data
+		input[compressedSize] = 0;
+
+		Inflater inflater = INFLATERS.get();
+		try {
+			inflater.setInput(input, 0, compressedSize + 1);
+
+			int offset = 0;
+			while (offset < bytes.length) {
+				int count = inflater.inflate(bytes, offset, bytes.length - offset);
+				if (count == 0) {
+					break;
+				}
+				offset += count;
+			}
+
+			if (offset != bytes.length) {
+				throw new ZipException("Truncated entry " + name + ".class");
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException("Invalid deflated data in " + name + ".class: " + e.getMessage());
+		} finally {
+			inflater.reset();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = null;
+		channel.close();
+	}
+}
@@ -30,14 +30,6 @@ public class Token implements Comparable<Token> {
 		return to.length() - length;
 	}
 
-	public void rename(StringBuffer source, String to) {
-		int oldEnd = this.end;
-		this.text = to;
-		this.end = this.start + to.length();
-
-		source.replace(start, oldEnd, to);
-	}
-
 	public Token move(int offset) {
 		Token token = new Token(this.start + offset, this.end + offset, null);
 		token.text = text;
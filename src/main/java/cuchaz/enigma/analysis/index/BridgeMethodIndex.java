@@ -129,6 +129,18 @@ public class BridgeMethodIndex implements JarIndexer {
 		return false;
 	}
 
+	void indexBridgeMethod(MethodEntry bridgeEntry) {
+		bridgeToSpecialized.add(bridgeEntry);
+	}
+
+	void indexSpecializedMethod(MethodEntry specializedEntry, MethodEntry bridgeEntry) {
+		specializedToBridge.put(specializedEntry, bridgeEntry);
+	}
+
+	Set<MethodEntry> getBridgeMethods() {
+		return Collections.unmodifiableSet(bridgeToSpecialized);
+	}
+
 	public boolean isBridgeMethod(MethodEntry entry) {
 		return bridgeToSpecialized.contains(entry);
 	}
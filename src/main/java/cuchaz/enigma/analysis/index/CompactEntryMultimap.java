@@ -0,0 +1,92 @@
+package cuchaz.enigma.analysis.index;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import cuchaz.enigma.translation.representation.entry.Entry;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable, compressed form of an entry to entry multimap, stored like {@link CompactReferences}.
+ */
+final class CompactEntryMultimap<K extends Entry<?>, V extends Entry<?>> {
+	private final EntryTable table;
+
+	private final int[] keySlots;
+	private final int[] keys;
+	private final int[] offsets;
+	private final int[] values;
+
+	CompactEntryMultimap(Multimap<K, V> multimap, EntryTable table) {
+		int keyCount = multimap.keySet().size();
+
+		this.table = table;
+		this.keys = new int[keyCount];
+		this.offsets = new int[keyCount + 1];
+		this.values = new int[multimap.size()];
+
+		int slot = 0;
+		int position = 0;
+		for (Map.Entry<K, Collection<V>> entry : multimap.asMap().entrySet()) {
+			keys[slot] = table.id(entry.getKey());
+			offsets[slot] = position;
+
+			for (V value : entry.getValue()) {
+				values[position++] = table.id(value);
+			}
+
+			slot++;
+		}
+		offsets[keyCount] = position;
+
+		// keys and values share the table, so the keys can only be indexed once every id has been assigned
+		this.keySlots = table.newSlotsById();
+		for (slot = 0; slot < keyCount; slot++) {
+			keySlots[keys[slot]] = slot;
+		}
+	}
+
+	Collection<V> get(K key) {
+		int slot = table.findSlot(key, keySlots);
+		if (slot < 0) {
+			return Collections.emptyList();
+		}
+
+		return new Values(offsets[slot], offsets[slot + 1]);
+	}
+
+	Multimap<K, V> toMultimap() {
+		Multimap<K, V> multimap = HashMultimap.create(keys.length, keys.length == 0 ? 0 : values.length / keys.length);
+		for (int slot = 0; slot < keys.length; slot++) {
+			K key = table.get(keys[slot]);
+			multimap.putAll(key, new Values(offsets[slot], offsets[slot + 1]));
+		}
+		return multimap;
+	}
+
+	private class Values extends AbstractList<V> {
+		private final int start;
+		private final int end;
+
+		Values(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public V get(int index) {
+			if (index < 0 || index >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return table.get(values[start + index]);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+}
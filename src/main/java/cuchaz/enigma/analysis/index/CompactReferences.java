@@ -0,0 +1,110 @@
+package cuchaz.enigma.analysis.index;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import cuchaz.enigma.analysis.EntryReference;
+import cuchaz.enigma.translation.representation.entry.Entry;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable, compressed form of a reference multimap. The references of all keys are stored back to back in
+ * int arrays of entry ids, with each key owning a contiguous range, and {@link EntryReference} objects are only
+ * created when a key is queried.
+ */
+final class CompactReferences<E extends Entry<?>, C extends Entry<?>> {
+	private final EntryTable table;
+
+	private final int[] keySlots;
+	private final int[] keys;
+	private final int[] offsets;
+
+	private final int[] entries;
+	private final int[] contexts;
+	private final BitSet named;
+
+	CompactReferences(Multimap<E, EntryReference<E, C>> references, EntryTable table) {
+		int keyCount = references.keySet().size();
+
+		this.table = table;
+		this.keys = new int[keyCount];
+		this.offsets = new int[keyCount + 1];
+		this.entries = new int[references.size()];
+		this.contexts = new int[references.size()];
+		this.named = new BitSet(references.size());
+
+		int slot = 0;
+		int position = 0;
+		for (Map.Entry<E, Collection<EntryReference<E, C>>> entry : references.asMap().entrySet()) {
+			keys[slot] = table.id(entry.getKey());
+			offsets[slot] = position;
+
+			for (EntryReference<E, C> reference : entry.getValue()) {
+				entries[position] = table.id(reference.entry);
+				contexts[position] = reference.context != null ? table.id(reference.context) : -1;
+				named.set(position, reference.isNamed());
+				position++;
+			}
+
+			slot++;
+		}
+		offsets[keyCount] = position;
+
+		// keys and values share the table, so the keys can only be indexed once every id has been assigned
+		this.keySlots = table.newSlotsById();
+		for (slot = 0; slot < keyCount; slot++) {
+			keySlots[keys[slot]] = slot;
+		}
+	}
+
+	Collection<EntryReference<E, C>> get(E key) {
+		int slot = table.findSlot(key, keySlots);
+		if (slot < 0) {
+			return Collections.emptyList();
+		}
+
+		return new References(offsets[slot], offsets[slot + 1]);
+	}
+
+	Multimap<E, EntryReference<E, C>> toMultimap() {
+		Multimap<E, EntryReference<E, C>> multimap = HashMultimap.create(keys.length, keys.length == 0 ? 0 : entries.length / keys.length);
+		for (int slot = 0; slot < keys.length; slot++) {
+			E key = table.get(keys[slot]);
+			multimap.putAll(key, new References(offsets[slot], offsets[slot + 1]));
+		}
+		return multimap;
+	}
+
+	private EntryReference<E, C> createReference(int position) {
+		E entry = table.get(entries[position]);
+		C context = contexts[position] != -1 ? table.get(contexts[position]) : null;
+		return new EntryReference<>(entry, named.get(position) ? entry.getName() : null, context);
+	}
+
+	private class References extends AbstractList<EntryReference<E, C>> {
+		private final int start;
+		private final int end;
+
+		References(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public EntryReference<E, C> get(int index) {
+			if (index < 0 || index >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			return createReference(start + index);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+	}
+}
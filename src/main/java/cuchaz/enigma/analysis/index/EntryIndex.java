@@ -4,93 +4,201 @@ import cuchaz.enigma.translation.representation.AccessFlags;
 import cuchaz.enigma.translation.representation.entry.*;
 
 import javax.annotation.Nullable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexes the classes, methods and fields declared in a jar. Every declared entry is given a dense int id in the
+ * order it was indexed, and each kind of entry is kept as a list of ids into a single table. Access flags are kept
+ * in an int array indexed by id.
+ */
 public class EntryIndex implements JarIndexer {
-	private Map<ClassEntry, AccessFlags> classes = new HashMap<>();
-	private Map<FieldEntry, AccessFlags> fields = new HashMap<>();
-	private Map<MethodEntry, AccessFlags> methods = new HashMap<>();
+	private final EntryTable table = new EntryTable();
+	private int[] access = new int[64];
+
+	private final IdList classes = new IdList();
+	private final IdList fields = new IdList();
+	private final IdList methods = new IdList();
 
 	@Override
 	public void indexClass(ClassDefEntry classEntry) {
-		classes.put(classEntry, classEntry.getAccess());
+		put(classEntry, classEntry.getAccess(), classes);
 	}
 
 	@Override
 	public void indexMethod(MethodDefEntry methodEntry) {
-		methods.put(methodEntry, methodEntry.getAccess());
+		put(methodEntry, methodEntry.getAccess(), methods);
 	}
 
 	@Override
 	public void indexField(FieldDefEntry fieldEntry) {
-		fields.put(fieldEntry, fieldEntry.getAccess());
+		put(fieldEntry, fieldEntry.getAccess(), fields);
+	}
+
+	private void put(Entry<?> entry, AccessFlags access, IdList ids) {
+		put(entry, access.getFlags(), ids);
+	}
+
+	/**
+	 * Adds an entry, or updates the access of an entry that was added before.
+	 */
+	private void put(Entry<?> entry, int entryAccess, IdList ids) {
+		int id = table.indexOf(entry);
+		if (id < 0) {
+			id = table.id(entry);
+			ids.add(id);
+			if (id == access.length) {
+				access = Arrays.copyOf(access, id * 2);
+			}
+		}
+		access[id] = entryAccess;
+	}
+
+	void merge(EntryIndex other) {
+		mergeIds(other, other.classes, classes);
+		mergeIds(other, other.fields, fields);
+		mergeIds(other, other.methods, methods);
+	}
+
+	private void mergeIds(EntryIndex other, IdList otherIds, IdList ids) {
+		for (int i = 0; i < otherIds.size(); i++) {
+			int otherId = otherIds.get(i);
+			put(other.table.get(otherId), other.access[otherId], ids);
+		}
 	}
 
 	public boolean hasClass(ClassEntry entry) {
-		return classes.containsKey(entry);
+		return table.indexOf(entry) >= 0;
 	}
 
 	public boolean hasMethod(MethodEntry entry) {
-		return methods.containsKey(entry);
+		return table.indexOf(entry) >= 0;
 	}
 
 	public boolean hasField(FieldEntry entry) {
-		return fields.containsKey(entry);
+		return table.indexOf(entry) >= 0;
 	}
 
 	public boolean hasEntry(Entry<?> entry) {
-		if (entry instanceof ClassEntry) {
-			return hasClass((ClassEntry) entry);
-		} else if (entry instanceof MethodEntry) {
-			return hasMethod((MethodEntry) entry);
-		} else if (entry instanceof FieldEntry) {
-			return hasField((FieldEntry) entry);
-		} else if (entry instanceof LocalVariableEntry) {
+		if (entry instanceof LocalVariableEntry) {
 			return hasMethod(((LocalVariableEntry) entry).getParent());
 		}
 
-		return false;
+		return table.indexOf(entry) >= 0;
 	}
 
 	@Nullable
 	public AccessFlags getMethodAccess(MethodEntry entry) {
-		return methods.get(entry);
+		return getAccess(entry);
 	}
 
 	@Nullable
 	public AccessFlags getFieldAccess(FieldEntry entry) {
-		return fields.get(entry);
+		return getAccess(entry);
 	}
 
 	@Nullable
 	public AccessFlags getClassAccess(ClassEntry entry) {
-		return classes.get(entry);
+		return getAccess(entry);
 	}
 
 	@Nullable
 	public AccessFlags getEntryAccess(Entry<?> entry) {
-		if (entry instanceof MethodEntry) {
-			return getMethodAccess((MethodEntry) entry);
-		} else if (entry instanceof FieldEntry) {
-			return getFieldAccess((FieldEntry) entry);
-		} else if (entry instanceof LocalVariableEntry) {
+		if (entry instanceof LocalVariableEntry) {
 			return getMethodAccess(((LocalVariableEntry) entry).getParent());
+		} else if (entry instanceof ClassEntry) {
+			return null;
 		}
 
-		return null;
+		return getAccess(entry);
+	}
+
+	@Nullable
+	private AccessFlags getAccess(Entry<?> entry) {
+		int id = table.indexOf(entry);
+		return id >= 0 ? new AccessFlags(access[id]) : null;
 	}
 
 	public Collection<ClassEntry> getClasses() {
-		return classes.keySet();
+		return new EntryView<>(classes);
 	}
 
 	public Collection<MethodEntry> getMethods() {
-		return methods.keySet();
+		return new EntryView<>(methods);
 	}
 
 	public Collection<FieldEntry> getFields() {
-		return fields.keySet();
+		return new EntryView<>(fields);
+	}
+
+	private static class IdList {
+		private int[] ids = new int[16];
+		private int size;
+
+		void add(int id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		int get(int index) {
+			return ids[index];
+		}
+
+		int size() {
+			return size;
+		}
+	}
+
+	private class EntryView<E extends Entry<?>> extends AbstractCollection<E> {
+		private final IdList ids;
+
+		EntryView(IdList ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				private int index;
+
+				@Override
+				public boolean hasNext() {
+					return index < ids.size();
+				}
+
+				@Override
+				public E next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return table.get(ids.get(index++));
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+
+			int id = table.indexOf((Entry<?>) o);
+			if (id < 0) {
+				return false;
+			}
+
+			// ids are handed out in ascending order, so each list is sorted
+			return Arrays.binarySearch(ids.ids, 0, ids.size(), id) >= 0;
+		}
+
+		@Override
+		public int size() {
+			return ids.size();
+		}
 	}
 }
@@ -0,0 +1,145 @@
+package cuchaz.enigma.analysis.index;
+
+import cuchaz.enigma.translation.representation.entry.Entry;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense integer ids to entries, so that indexes can store them as plain ints and keep anything else they
+ * know about an entry in arrays indexed by id. The entry to id lookup is an open-addressing hash table of ids, using
+ * the entry hashes computed when the entries were added, so neither growing the table nor probing needs to recompute
+ * them. It is shared by every index built on the same table, so that each index only needs an int array indexed by id
+ * to find its keys. After {@link #freeze()}, no more ids can be assigned.
+ */
+final class EntryTable {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private Entry<?>[] entries = new Entry<?>[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int size;
+
+	// id + 1 of the entry in each slot, 0 for an empty slot
+	private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+	private boolean frozen;
+
+	/**
+	 * Returns the id of the given entry, assigning a new one if needed. ClassEntry equals ClassDefEntry, so entries
+	 * of different types are given different ids to keep definitions intact.
+	 */
+	int id(Entry<?> entry) {
+		if (frozen) {
+			throw new IllegalStateException("Entry table is frozen");
+		}
+
+		int hash = hash(entry);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				break;
+			}
+			if (hashes[id] == hash && entries[id].getClass() == entry.getClass() && entries[id].equals(entry)) {
+				return id;
+			}
+		}
+
+		if (size == entries.length) {
+			grow();
+		}
+
+		int id = size++;
+		entries[id] = entry;
+		hashes[id] = hash;
+		insert(id);
+
+		return id;
+	}
+
+	/**
+	 * Returns the id of an entry equal to the given one, whatever its type, or -1 if there is none.
+	 */
+	int indexOf(Entry<?> entry) {
+		int hash = hash(entry);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				return -1;
+			}
+			if (hashes[id] == hash && entries[id].equals(entry)) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * Looks up a key in a table of slots indexed by id, where -1 marks ids that are not keys. Keys are matched by
+	 * equality alone, so a query with a definition finds the plain entry and the other way around.
+	 *
+	 * @return the slot of the key, or -1 if it isn't one
+	 */
+	int findSlot(Entry<?> key, int[] slotsById) {
+		int hash = hash(key);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (id < 0) {
+				return -1;
+			}
+			if (id < slotsById.length && slotsById[id] >= 0 && hashes[id] == hash && entries[id].equals(key)) {
+				return slotsById[id];
+			}
+		}
+	}
+
+	/**
+	 * Creates an empty table of slots indexed by id, for use with {@link #findSlot}.
+	 */
+	int[] newSlotsById() {
+		int[] slotsById = new int[size];
+		Arrays.fill(slotsById, -1);
+		return slotsById;
+	}
+
+	void freeze() {
+		frozen = true;
+		entries = Arrays.copyOf(entries, size);
+		hashes = Arrays.copyOf(hashes, size);
+	}
+
+	@SuppressWarnings("unchecked")
+	<E extends Entry<?>> E get(int id) {
+		return (E) entries[id];
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void insert(int id) {
+		int mask = slots.length - 1;
+		int slot = hashes[id] & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = id + 1;
+	}
+
+	private void grow() {
+		int capacity = entries.length * 2;
+		entries = Arrays.copyOf(entries, capacity);
+		hashes = Arrays.copyOf(hashes, capacity);
+
+		// keep the table at most half full
+		slots = new int[capacity * 2];
+		for (int id = 0; id < size; id++) {
+			insert(id);
+		}
+	}
+
+	private static int hash(Entry<?> entry) {
+		int hash = entry.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -2,7 +2,6 @@ package cuchaz.enigma.analysis.index;
 
 import cuchaz.enigma.translation.representation.AccessFlags;
 import cuchaz.enigma.translation.representation.Lambda;
-import cuchaz.enigma.translation.representation.MethodDescriptor;
 import cuchaz.enigma.translation.representation.Signature;
 import cuchaz.enigma.translation.representation.entry.*;
 import org.objectweb.asm.*;
@@ -18,12 +17,12 @@ public class IndexReferenceVisitor extends ClassVisitor {
 
 	@Override
 	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-		this.classEntry = new ClassEntry(name);
+		this.classEntry = EntryInterner.classEntry(name);
 	}
 
 	@Override
 	public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
-		MethodDefEntry entry = new MethodDefEntry(classEntry, name, new MethodDescriptor(desc), Signature.createSignature(signature), new AccessFlags(access));
+		MethodDefEntry entry = new MethodDefEntry(classEntry, name, EntryInterner.methodDescriptor(desc), Signature.createSignature(signature), new AccessFlags(access));
 		return new Method(this.indexer, entry, this.api);
 	}
 
@@ -75,10 +74,10 @@ public class IndexReferenceVisitor extends ClassVisitor {
 
 				this.indexer.indexLambda(callerEntry, new Lambda(
 					name,
-					new MethodDescriptor(desc),
-					new MethodDescriptor(samMethodType.getDescriptor()),
+					EntryInterner.methodDescriptor(desc),
+					EntryInterner.methodDescriptor(samMethodType.getDescriptor()),
 					getHandleEntry(implMethod),
-					new MethodDescriptor(instantiatedMethodType.getDescriptor())
+					EntryInterner.methodDescriptor(instantiatedMethodType.getDescriptor())
 				));
 			}
 		}
@@ -13,21 +13,23 @@ package cuchaz.enigma.analysis.index;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
 import cuchaz.enigma.translation.representation.entry.ClassDefEntry;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Indexes the direct parents and children of classes. The transitive ancestors and descendants of every class are
+ * computed together the first time they are queried, and kept until the index changes.
+ */
 public class InheritanceIndex implements JarIndexer {
 	private final EntryIndex entryIndex;
 
 	private Multimap<ClassEntry, ClassEntry> classParents = HashMultimap.create();
 	private Multimap<ClassEntry, ClassEntry> classChildren = HashMultimap.create();
 
+	private volatile Closure closure;
+
 	public InheritanceIndex(EntryIndex entryIndex) {
 		this.entryIndex = entryIndex;
 	}
@@ -48,9 +50,16 @@ public class InheritanceIndex implements JarIndexer {
 		}
 	}
 
-	private void indexParent(ClassEntry childEntry, ClassEntry parentEntry) {
+	void indexParent(ClassEntry childEntry, ClassEntry parentEntry) {
 		classParents.put(childEntry, parentEntry);
 		classChildren.put(parentEntry, childEntry);
+		closure = null;
+	}
+
+	void merge(InheritanceIndex other) {
+		classParents.putAll(other.classParents);
+		classChildren.putAll(other.classChildren);
+		closure = null;
 	}
 
 	public Collection<ClassEntry> getParents(ClassEntry classEntry) {
@@ -62,47 +71,28 @@ public class InheritanceIndex implements JarIndexer {
 	}
 
 	public Collection<ClassEntry> getDescendants(ClassEntry classEntry) {
-		Collection<ClassEntry> descendants = new HashSet<>();
-
-		LinkedList<ClassEntry> descendantQueue = new LinkedList<>();
-		descendantQueue.push(classEntry);
-
-		while (!descendantQueue.isEmpty()) {
-			ClassEntry descendant = descendantQueue.pop();
-			Collection<ClassEntry> children = getChildren(descendant);
-
-			children.forEach(descendantQueue::push);
-			descendants.addAll(children);
-		}
-
-		return descendants;
+		return getClosure().getDescendants(classEntry);
 	}
 
 	public Set<ClassEntry> getAncestors(ClassEntry classEntry) {
-		Set<ClassEntry> ancestors = Sets.newHashSet();
-
-		LinkedList<ClassEntry> ancestorQueue = new LinkedList<>();
-		ancestorQueue.push(classEntry);
-
-		while (!ancestorQueue.isEmpty()) {
-			ClassEntry ancestor = ancestorQueue.pop();
-			Collection<ClassEntry> parents = getParents(ancestor);
-
-			parents.forEach(ancestorQueue::push);
-			ancestors.addAll(parents);
-		}
+		return getClosure().getAncestors(classEntry);
+	}
 
-		return ancestors;
+	public boolean isAncestor(ClassEntry classEntry, ClassEntry potentialAncestor) {
+		return getClosure().isAncestor(classEntry, potentialAncestor);
 	}
 
 	public Relation computeClassRelation(ClassEntry classEntry, ClassEntry potentialAncestor) {
 		if (potentialAncestor.getName().equals("java/lang/Object")) return Relation.RELATED;
 		if (!entryIndex.hasClass(classEntry)) return Relation.UNKNOWN;
 
-		for (ClassEntry ancestor : getAncestors(classEntry)) {
-			if (potentialAncestor.equals(ancestor)) {
-				return Relation.RELATED;
-			} else if (!entryIndex.hasClass(ancestor)) {
+		Closure closure = getClosure();
+		if (closure.isAncestor(classEntry, potentialAncestor)) {
+			return Relation.RELATED;
+		}
+
+		for (ClassEntry ancestor : closure.getAncestors(classEntry)) {
+			if (!entryIndex.hasClass(ancestor)) {
 				return Relation.UNKNOWN;
 			}
 		}
@@ -110,6 +100,20 @@ public class InheritanceIndex implements JarIndexer {
 		return Relation.UNRELATED;
 	}
 
+	private Closure getClosure() {
+		Closure closure = this.closure;
+		if (closure == null) {
+			synchronized (this) {
+				closure = this.closure;
+				if (closure == null) {
+					closure = new Closure(classParents);
+					this.closure = closure;
+				}
+			}
+		}
+		return closure;
+	}
+
 	public boolean isParent(ClassEntry classEntry) {
 		return classChildren.containsKey(classEntry);
 	}
@@ -119,6 +123,183 @@ public class InheritanceIndex implements JarIndexer {
 		return parents != null && !parents.isEmpty();
 	}
 
+	/**
+	 * The transitive closure of the inheritance graph. Every class in the graph is given a dense id, parents before
+	 * their children, and the ancestors and descendants of each class are stored as sorted id ranges in two shared
+	 * arrays, so ancestor tests are a binary search and the returned sets are immutable views.
+	 */
+	private static class Closure {
+		private final Map<ClassEntry, Integer> ids;
+		private final ClassEntry[] classes;
+
+		private final int[] ancestorOffsets;
+		private final int[] ancestors;
+		private final int[] descendantOffsets;
+		private final int[] descendants;
+
+		Closure(Multimap<ClassEntry, ClassEntry> classParents) {
+			ids = new HashMap<>();
+			List<ClassEntry> order = new ArrayList<>();
+			Set<ClassEntry> visiting = new HashSet<>();
+			for (ClassEntry classEntry : classParents.keySet()) {
+				assignIds(classEntry, classParents, visiting, order);
+			}
+			classes = order.toArray(new ClassEntry[0]);
+
+			int[][] parents = new int[classes.length][];
+			for (int id = 0; id < classes.length; id++) {
+				Collection<ClassEntry> classEntryParents = classParents.get(classes[id]);
+				parents[id] = new int[classEntryParents.size()];
+
+				int i = 0;
+				for (ClassEntry parent : classEntryParents) {
+					parents[id][i++] = ids.get(parent);
+				}
+			}
+
+			// breadth first search from every class, marking visited ids with the id of the search
+			int[] visited = new int[classes.length];
+			Arrays.fill(visited, -1);
+			int[] queue = new int[classes.length];
+
+			ancestorOffsets = new int[classes.length + 1];
+			int[] descendantCounts = new int[classes.length];
+			int[] ancestorBuffer = new int[classes.length];
+			int ancestorCount = 0;
+
+			for (int id = 0; id < classes.length; id++) {
+				ancestorOffsets[id] = ancestorCount;
+
+				int head = 0;
+				int tail = 0;
+				queue[tail++] = id;
+				while (head < tail) {
+					for (int parent : parents[queue[head++]]) {
+						if (visited[parent] != id) {
+							visited[parent] = id;
+							queue[tail++] = parent;
+
+							if (ancestorCount == ancestorBuffer.length) {
+								ancestorBuffer = Arrays.copyOf(ancestorBuffer, ancestorBuffer.length * 2);
+							}
+							ancestorBuffer[ancestorCount++] = parent;
+							descendantCounts[parent]++;
+						}
+					}
+				}
+
+				Arrays.sort(ancestorBuffer, ancestorOffsets[id], ancestorCount);
+			}
+			ancestorOffsets[classes.length] = ancestorCount;
+			ancestors = Arrays.copyOf(ancestorBuffer, ancestorCount);
+
+			descendantOffsets = new int[classes.length + 1];
+			for (int id = 0; id < classes.length; id++) {
+				descendantOffsets[id + 1] = descendantOffsets[id] + descendantCounts[id];
+			}
+
+			// classes are visited in ascending order, so every descendant range ends up sorted
+			descendants = new int[ancestorCount];
+			int[] positions = Arrays.copyOf(descendantOffsets, classes.length);
+			for (int id = 0; id < classes.length; id++) {
+				for (int i = ancestorOffsets[id]; i < ancestorOffsets[id + 1]; i++) {
+					descendants[positions[ancestors[i]]++] = id;
+				}
+			}
+		}
+
+		private void assignIds(ClassEntry classEntry, Multimap<ClassEntry, ClassEntry> classParents, Set<ClassEntry> visiting, List<ClassEntry> order) {
+			if (ids.containsKey(classEntry) || !visiting.add(classEntry)) {
+				return;
+			}
+
+			for (ClassEntry parent : classParents.get(classEntry)) {
+				assignIds(parent, classParents, visiting, order);
+			}
+
+			visiting.remove(classEntry);
+			ids.put(classEntry, order.size());
+			order.add(classEntry);
+		}
+
+		Set<ClassEntry> getAncestors(ClassEntry classEntry) {
+			Integer id = ids.get(classEntry);
+			if (id == null) {
+				return Collections.emptySet();
+			}
+
+			// ancestors are listed from the nearest down to the roots of the hierarchy
+			return new ClassSet(ancestors, ancestorOffsets[id], ancestorOffsets[id + 1], true);
+		}
+
+		Set<ClassEntry> getDescendants(ClassEntry classEntry) {
+			Integer id = ids.get(classEntry);
+			if (id == null) {
+				return Collections.emptySet();
+			}
+
+			return new ClassSet(descendants, descendantOffsets[id], descendantOffsets[id + 1], false);
+		}
+
+		boolean isAncestor(ClassEntry classEntry, ClassEntry potentialAncestor) {
+			Integer id = ids.get(classEntry);
+			Integer ancestorId = ids.get(potentialAncestor);
+			if (id == null || ancestorId == null) {
+				return false;
+			}
+
+			return Arrays.binarySearch(ancestors, ancestorOffsets[id], ancestorOffsets[id + 1], ancestorId) >= 0;
+		}
+
+		private class ClassSet extends AbstractSet<ClassEntry> {
+			private final int[] members;
+			private final int start;
+			private final int end;
+			private final boolean descending;
+
+			ClassSet(int[] members, int start, int end, boolean descending) {
+				this.members = members;
+				this.start = start;
+				this.end = end;
+				this.descending = descending;
+			}
+
+			@Override
+			public Iterator<ClassEntry> iterator() {
+				return new Iterator<ClassEntry>() {
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < size();
+					}
+
+					@Override
+					public ClassEntry next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+
+						int position = descending ? end - 1 - index : start + index;
+						index++;
+						return classes[members[position]];
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				Integer id = ids.get(o);
+				return id != null && Arrays.binarySearch(members, start, end, id) >= 0;
+			}
+
+			@Override
+			public int size() {
+				return end - start;
+			}
+		}
+	}
+
 	public enum Relation {
 		RELATED,
 		UNRELATED,
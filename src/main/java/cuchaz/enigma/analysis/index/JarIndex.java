@@ -12,6 +12,7 @@
 package cuchaz.enigma.analysis.index;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import cuchaz.enigma.ProgressListener;
 import cuchaz.enigma.analysis.ClassCache;
@@ -20,10 +21,14 @@ import cuchaz.enigma.translation.mapping.IndexEntryResolver;
 import cuchaz.enigma.translation.representation.Lambda;
 import cuchaz.enigma.translation.representation.entry.*;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class JarIndex implements JarIndexer {
 	private final EntryIndex entryIndex;
@@ -31,10 +36,12 @@ public class JarIndex implements JarIndexer {
 	private final ReferenceIndex referenceIndex;
 	private final BridgeMethodIndex bridgeMethodIndex;
 	private final PackageVisibilityIndex packageVisibilityIndex;
-	private final EntryResolver entryResolver;
+	private final IndexEntryResolver entryResolver;
 
 	private final Collection<JarIndexer> indexers;
 
+	private static final int SHARDS_PER_THREAD = 4;
+
 	private final Multimap<String, MethodDefEntry> methodImplementations = HashMultimap.create();
 
 	public JarIndex(EntryIndex entryIndex, InheritanceIndex inheritanceIndex, ReferenceIndex referenceIndex, BridgeMethodIndex bridgeMethodIndex, PackageVisibilityIndex packageVisibilityIndex) {
@@ -59,11 +66,45 @@ public class JarIndex implements JarIndexer {
 	public void indexJar(ClassCache classCache, ProgressListener progress) {
 		progress.init(4, "Indexing jar");
 
-		progress.step(1, "Entries...");
-		classCache.visit(() -> new IndexClassVisitor(this, Opcodes.ASM5), ClassReader.SKIP_CODE);
+		progress.step(1, "Entries and references...");
+		ReferenceBuffer references = new ReferenceBuffer();
+		classCache.visitCombined(indexVisitors(this, references), ClassReader.SKIP_FRAMES);
 
 		progress.step(2, "Entry references...");
-		classCache.visit(() -> new IndexReferenceVisitor(this, Opcodes.ASM5), ClassReader.SKIP_FRAMES);
+		references.replay(this);
+
+		progress.step(3, "Bridge methods...");
+		bridgeMethodIndex.findBridgeMethods();
+
+		progress.step(4, "Processing...");
+		processIndex(this);
+	}
+
+	/**
+	 * Indexes the jar on multiple threads. The class list is split into contiguous shards which are each indexed into
+	 * their own {@link JarIndex}, and the shards are then merged in order before processing. The result is the same as
+	 * that of {@link #indexJar(ClassCache, ProgressListener)}.
+	 */
+	public void indexJarParallel(ClassCache classCache, ProgressListener progress) {
+		progress.init(4, "Indexing jar");
+
+		progress.step(1, "Entries and references...");
+		List<String> classNames = classCache.getClassNames().asList();
+		int shardCount = Runtime.getRuntime().availableProcessors() * SHARDS_PER_THREAD;
+		int shardSize = Math.max(1, (classNames.size() + shardCount - 1) / shardCount);
+
+		List<JarIndex> shards = Lists.partition(classNames, shardSize).parallelStream()
+				.map(shardClassNames -> {
+					JarIndex shard = JarIndex.empty();
+					ReferenceBuffer references = new ReferenceBuffer();
+					classCache.visitCombined(shardClassNames, indexVisitors(shard, references), ClassReader.SKIP_FRAMES);
+					references.replay(shard);
+					return shard;
+				})
+				.collect(Collectors.toList());
+
+		progress.step(2, "Merging shards...");
+		shards.forEach(this::merge);
 
 		progress.step(3, "Bridge methods...");
 		bridgeMethodIndex.findBridgeMethods();
@@ -72,9 +113,30 @@ public class JarIndex implements JarIndexer {
 		processIndex(this);
 	}
 
+	/**
+	 * Declarations and references are collected in a single read of each class. The references are buffered and only
+	 * indexed once every declaration has been, exactly as if the jar had been read twice.
+	 */
+	private static List<Supplier<ClassVisitor>> indexVisitors(JarIndex index, ReferenceBuffer references) {
+		return Arrays.asList(
+				() -> new IndexClassVisitor(index, Opcodes.ASM5),
+				() -> new IndexReferenceVisitor(references, Opcodes.ASM5)
+		);
+	}
+
+	private void merge(JarIndex shard) {
+		entryIndex.merge(shard.entryIndex);
+		inheritanceIndex.merge(shard.inheritanceIndex);
+		referenceIndex.merge(shard.referenceIndex);
+		methodImplementations.putAll(shard.methodImplementations);
+	}
+
 	@Override
 	public void processIndex(JarIndex index) {
 		indexers.forEach(indexer -> indexer.processIndex(index));
+
+		// resolutions made while processing may be outdated by later indexers
+		entryResolver.invalidateCache();
 	}
 
 	@Override
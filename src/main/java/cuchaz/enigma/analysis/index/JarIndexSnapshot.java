@@ -0,0 +1,419 @@
+package cuchaz.enigma.analysis.index;
+
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import cuchaz.enigma.Constants;
+import cuchaz.enigma.analysis.EntryReference;
+import cuchaz.enigma.translation.representation.AccessFlags;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.Signature;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.*;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of a fully processed {@link JarIndex}, used to skip indexing when the same jar is opened again.
+ * Snapshots are keyed by the SHA-256 hash of the jar and are only read back by the Enigma version that wrote them.
+ */
+public final class JarIndexSnapshot {
+	private static final int MAGIC = 0x454E4958;
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte CLASS = 0;
+	private static final byte CLASS_DEF = 1;
+	private static final byte FIELD = 2;
+	private static final byte FIELD_DEF = 3;
+	private static final byte METHOD = 4;
+	private static final byte METHOD_DEF = 5;
+
+	private JarIndexSnapshot() {
+	}
+
+	public static Path resolve(Path directory, Path jarPath) throws IOException {
+		String hash = MoreFiles.asByteSource(jarPath).hash(Hashing.sha256()).toString();
+		return directory.resolve(hash + ".index");
+	}
+
+	/**
+	 * @return the index stored at the given path, or {@code null} if there is no snapshot or it was written by a
+	 * different version
+	 */
+	@Nullable
+	public static JarIndex read(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(Constants.VERSION)) {
+				return null;
+			}
+
+			return new Reader(in).read();
+		}
+	}
+
+	public static void write(JarIndex index, Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+
+		Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(Constants.VERSION);
+
+			new Writer(out).write(index);
+		}
+
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static class Writer {
+		private final DataOutputStream out;
+
+		private final Map<Class<?>, Map<Entry<?>, Integer>> ids = new HashMap<>();
+		private final List<Entry<?>> entries = new ArrayList<>();
+
+		private final ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+		private final DataOutputStream sections = new DataOutputStream(sectionBytes);
+
+		Writer(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void write(JarIndex index) throws IOException {
+			writeEntryIndex(index.getEntryIndex());
+			writeInheritanceIndex(index.getEntryIndex(), index.getInheritanceIndex());
+			writeReferenceIndex(index.getReferenceIndex());
+			writeBridgeMethodIndex(index.getBridgeMethodIndex());
+			writePackageVisibilityIndex(index.getPackageVisibilityIndex());
+
+			// the entry table must be read before the sections that refer to it
+			out.writeInt(entries.size());
+			for (Entry<?> entry : entries) {
+				writeEntry(entry);
+			}
+
+			sectionBytes.writeTo(out);
+		}
+
+		private void writeEntryIndex(EntryIndex entryIndex) throws IOException {
+			writeEntries(entryIndex.getClasses());
+			writeEntries(entryIndex.getMethods());
+			writeEntries(entryIndex.getFields());
+		}
+
+		private void writeInheritanceIndex(EntryIndex entryIndex, InheritanceIndex inheritanceIndex) throws IOException {
+			sections.writeInt(entryIndex.getClasses().size());
+			for (ClassEntry entry : entryIndex.getClasses()) {
+				sections.writeInt(id(entry));
+				writeEntries(inheritanceIndex.getParents(entry));
+			}
+		}
+
+		private void writeReferenceIndex(ReferenceIndex referenceIndex) throws IOException {
+			Multimap<MethodEntry, MethodEntry> methodReferences = referenceIndex.methodReferences();
+			sections.writeInt(methodReferences.size());
+			for (Map.Entry<MethodEntry, MethodEntry> entry : methodReferences.entries()) {
+				sections.writeInt(id(entry.getKey()));
+				sections.writeInt(id(entry.getValue()));
+			}
+
+			writeReferences(referenceIndex.referencesToMethods());
+			writeReferences(referenceIndex.referencesToClasses());
+			writeReferences(referenceIndex.referencesToFields());
+			writeReferences(referenceIndex.fieldTypeReferences());
+			writeReferences(referenceIndex.methodTypeReferences());
+		}
+
+		private void writeBridgeMethodIndex(BridgeMethodIndex bridgeMethodIndex) throws IOException {
+			writeEntries(bridgeMethodIndex.getBridgeMethods());
+
+			Map<MethodEntry, MethodEntry> specializedToBridge = bridgeMethodIndex.getSpecializedToBridge();
+			sections.writeInt(specializedToBridge.size());
+			for (Map.Entry<MethodEntry, MethodEntry> entry : specializedToBridge.entrySet()) {
+				sections.writeInt(id(entry.getKey()));
+				sections.writeInt(id(entry.getValue()));
+			}
+		}
+
+		private void writePackageVisibilityIndex(PackageVisibilityIndex packageVisibilityIndex) throws IOException {
+			Collection<Set<ClassEntry>> partitions = packageVisibilityIndex.getPartitions();
+			sections.writeInt(partitions.size());
+			for (Set<ClassEntry> partition : partitions) {
+				writeEntries(partition);
+			}
+		}
+
+		private void writeEntries(Collection<? extends Entry<?>> entries) throws IOException {
+			sections.writeInt(entries.size());
+			for (Entry<?> entry : entries) {
+				sections.writeInt(id(entry));
+			}
+		}
+
+		private <E extends Entry<?>, C extends Entry<?>> void writeReferences(Multimap<E, EntryReference<E, C>> references) throws IOException {
+			sections.writeInt(references.size());
+			for (Map.Entry<E, EntryReference<E, C>> entry : references.entries()) {
+				EntryReference<E, C> reference = entry.getValue();
+				sections.writeInt(id(entry.getKey()));
+				sections.writeInt(id(reference.entry));
+				sections.writeInt(reference.context != null ? id(reference.context) : -1);
+				sections.writeBoolean(reference.isNamed());
+			}
+		}
+
+		private int id(Entry<?> entry) {
+			// ClassEntry equals ClassDefEntry, so entries are keyed by their type as well to keep definitions intact
+			Map<Entry<?>, Integer> typeIds = ids.computeIfAbsent(entry.getClass(), type -> new HashMap<>());
+			Integer id = typeIds.get(entry);
+			if (id != null) {
+				return id;
+			}
+
+			// make sure every entry this one refers to comes before it in the table
+			Entry<?> parent = entry.getParent();
+			if (parent != null) {
+				id(parent);
+			}
+
+			if (entry instanceof ClassDefEntry) {
+				ClassDefEntry classEntry = (ClassDefEntry) entry;
+				if (classEntry.getSuperClass() != null) {
+					id(classEntry.getSuperClass());
+				}
+				for (ClassEntry interfaceEntry : classEntry.getInterfaces()) {
+					id(interfaceEntry);
+				}
+			}
+
+			id = entries.size();
+			entries.add(entry);
+			typeIds.put(entry, id);
+
+			return id;
+		}
+
+		private void writeEntry(Entry<?> entry) throws IOException {
+			out.writeByte(getKind(entry));
+
+			Entry<?> parent = entry.getParent();
+			out.writeInt(parent != null ? id(parent) : -1);
+			out.writeUTF(entry.getName());
+
+			if (entry instanceof ClassDefEntry) {
+				ClassDefEntry classEntry = (ClassDefEntry) entry;
+				writeDefinition(classEntry.getSignature(), classEntry.getAccess());
+
+				ClassEntry superClass = classEntry.getSuperClass();
+				out.writeInt(superClass != null ? id(superClass) : -1);
+
+				ClassEntry[] interfaces = classEntry.getInterfaces();
+				out.writeInt(interfaces.length);
+				for (ClassEntry interfaceEntry : interfaces) {
+					out.writeInt(id(interfaceEntry));
+				}
+			} else if (entry instanceof FieldEntry) {
+				out.writeUTF(((FieldEntry) entry).getDesc().toString());
+				if (entry instanceof FieldDefEntry) {
+					FieldDefEntry fieldEntry = (FieldDefEntry) entry;
+					writeDefinition(fieldEntry.getSignature(), fieldEntry.getAccess());
+				}
+			} else if (entry instanceof MethodEntry) {
+				out.writeUTF(((MethodEntry) entry).getDesc().toString());
+				if (entry instanceof MethodDefEntry) {
+					MethodDefEntry methodEntry = (MethodDefEntry) entry;
+					writeDefinition(methodEntry.getSignature(), methodEntry.getAccess());
+				}
+			}
+		}
+
+		private void writeDefinition(Signature signature, AccessFlags access) throws IOException {
+			String signatureString = signature.getSignature();
+			out.writeBoolean(signatureString != null);
+			if (signatureString != null) {
+				out.writeUTF(signatureString);
+			}
+			out.writeInt(access.getFlags());
+		}
+
+		private static byte getKind(Entry<?> entry) {
+			if (entry instanceof ClassDefEntry) {
+				return CLASS_DEF;
+			} else if (entry instanceof ClassEntry) {
+				return CLASS;
+			} else if (entry instanceof FieldDefEntry) {
+				return FIELD_DEF;
+			} else if (entry instanceof FieldEntry) {
+				return FIELD;
+			} else if (entry instanceof MethodDefEntry) {
+				return METHOD_DEF;
+			} else if (entry instanceof MethodEntry) {
+				return METHOD;
+			}
+
+			throw new IllegalArgumentException("Cannot write " + entry.getClass().getSimpleName() + " to an index snapshot: " + entry);
+		}
+	}
+
+	private static class Reader {
+		private final DataInputStream in;
+
+		private Entry<?>[] entries;
+
+		Reader(DataInputStream in) {
+			this.in = in;
+		}
+
+		JarIndex read() throws IOException {
+			entries = new Entry<?>[in.readInt()];
+			for (int i = 0; i < entries.length; i++) {
+				entries[i] = readEntry();
+			}
+
+			JarIndex index = JarIndex.empty();
+			readEntryIndex(index.getEntryIndex());
+			readInheritanceIndex(index.getInheritanceIndex());
+			readReferenceIndex(index.getReferenceIndex());
+			readBridgeMethodIndex(index.getBridgeMethodIndex());
+			readPackageVisibilityIndex(index.getPackageVisibilityIndex());
+
+			return index;
+		}
+
+		private void readEntryIndex(EntryIndex entryIndex) throws IOException {
+			for (ClassDefEntry entry : this.<ClassDefEntry>readEntries()) {
+				entryIndex.indexClass(entry);
+			}
+			for (MethodDefEntry entry : this.<MethodDefEntry>readEntries()) {
+				entryIndex.indexMethod(entry);
+			}
+			for (FieldDefEntry entry : this.<FieldDefEntry>readEntries()) {
+				entryIndex.indexField(entry);
+			}
+		}
+
+		private void readInheritanceIndex(InheritanceIndex inheritanceIndex) throws IOException {
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				ClassEntry entry = readEntryId();
+				for (ClassEntry parent : this.<ClassEntry>readEntries()) {
+					inheritanceIndex.indexParent(entry, parent);
+				}
+			}
+		}
+
+		private void readReferenceIndex(ReferenceIndex referenceIndex) throws IOException {
+			Multimap<MethodEntry, MethodEntry> methodReferences = referenceIndex.methodReferences();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				methodReferences.put(readEntryId(), readEntryId());
+			}
+
+			readReferences(referenceIndex.referencesToMethods());
+			readReferences(referenceIndex.referencesToClasses());
+			readReferences(referenceIndex.referencesToFields());
+			readReferences(referenceIndex.fieldTypeReferences());
+			readReferences(referenceIndex.methodTypeReferences());
+		}
+
+		private void readBridgeMethodIndex(BridgeMethodIndex bridgeMethodIndex) throws IOException {
+			for (MethodEntry entry : this.<MethodEntry>readEntries()) {
+				bridgeMethodIndex.indexBridgeMethod(entry);
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				bridgeMethodIndex.indexSpecializedMethod(readEntryId(), readEntryId());
+			}
+		}
+
+		private void readPackageVisibilityIndex(PackageVisibilityIndex packageVisibilityIndex) throws IOException {
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				packageVisibilityIndex.addPartition(new HashSet<>(this.<ClassEntry>readEntries()));
+			}
+		}
+
+		private <E extends Entry<?>> List<E> readEntries() throws IOException {
+			int count = in.readInt();
+			List<E> entries = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				entries.add(readEntryId());
+			}
+			return entries;
+		}
+
+		private <E extends Entry<?>, C extends Entry<?>> void readReferences(Multimap<E, EntryReference<E, C>> references) throws IOException {
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				E key = readEntryId();
+				E entry = readEntryId();
+				C context = readNullableEntryId();
+				boolean named = in.readBoolean();
+				references.put(key, new EntryReference<>(entry, named ? entry.getName() : null, context));
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private <E extends Entry<?>> E readEntryId() throws IOException {
+			return (E) entries[in.readInt()];
+		}
+
+		@Nullable
+		@SuppressWarnings("unchecked")
+		private <E extends Entry<?>> E readNullableEntryId() throws IOException {
+			int id = in.readInt();
+			return id != -1 ? (E) entries[id] : null;
+		}
+
+		private Entry<?> readEntry() throws IOException {
+			byte kind = in.readByte();
+			ClassEntry parent = readNullableEntryId();
+			String name = in.readUTF();
+
+			switch (kind) {
+				case CLASS:
+					return new ClassEntry(parent, name);
+				case CLASS_DEF: {
+					Signature signature = Signature.createSignature(readNullableString());
+					AccessFlags access = new AccessFlags(in.readInt());
+					ClassEntry superClass = readNullableEntryId();
+					ClassEntry[] interfaces = new ClassEntry[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = readEntryId();
+					}
+					return new ClassDefEntry(parent, name, signature, access, superClass, interfaces);
+				}
+				case FIELD:
+					return new FieldEntry(parent, name, new TypeDescriptor(in.readUTF()));
+				case FIELD_DEF: {
+					TypeDescriptor desc = new TypeDescriptor(in.readUTF());
+					Signature signature = Signature.createTypedSignature(readNullableString());
+					return new FieldDefEntry(parent, name, desc, signature, new AccessFlags(in.readInt()));
+				}
+				case METHOD:
+					return new MethodEntry(parent, name, new MethodDescriptor(in.readUTF()));
+				case METHOD_DEF: {
+					MethodDescriptor desc = new MethodDescriptor(in.readUTF());
+					Signature signature = Signature.createSignature(readNullableString());
+					return new MethodDefEntry(parent, name, desc, signature, new AccessFlags(in.readInt()));
+				}
+			}
+
+			throw new IOException("Unknown entry kind " + kind + " in index snapshot");
+		}
+
+		@Nullable
+		private String readNullableString() throws IOException {
+			return in.readBoolean() ? in.readUTF() : null;
+		}
+	}
+}
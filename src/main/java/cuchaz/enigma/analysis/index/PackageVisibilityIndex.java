@@ -14,8 +14,7 @@ public class PackageVisibilityIndex implements JarIndexer {
 	private static boolean requiresSamePackage(AccessFlags entryAcc, EntryReference ref, InheritanceIndex inheritanceIndex) {
 		if (entryAcc.isPublic()) return false;
 		if (entryAcc.isProtected()) {
-			Set<ClassEntry> callerAncestors = inheritanceIndex.getAncestors(ref.context.getContainingClass());
-			return !callerAncestors.contains(ref.entry.getContainingClass());
+			return !inheritanceIndex.isAncestor(ref.context.getContainingClass(), ref.entry.getContainingClass());
 		}
 		return !entryAcc.isPrivate(); // if isPrivate is false, it must be package-private
 	}
@@ -101,10 +100,14 @@ public class PackageVisibilityIndex implements JarIndexer {
 			HashSet<ClassEntry> partition = Sets.newHashSet();
 			partition.add(initialEntry);
 			buildPartition(unassignedClasses, partition, initialEntry);
-			partitions.add(partition);
-			for (ClassEntry entry : partition) {
-				classPartitions.put(entry, partition);
-			}
+			addPartition(partition);
+		}
+	}
+
+	void addPartition(Set<ClassEntry> partition) {
+		partitions.add(partition);
+		for (ClassEntry entry : partition) {
+			classPartitions.put(entry, partition);
 		}
 	}
 
@@ -0,0 +1,54 @@
+package cuchaz.enigma.analysis.index;
+
+import cuchaz.enigma.translation.representation.Lambda;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodDefEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the references found while declarations are still being indexed, so that they can be handed to the real
+ * indexer afterwards, in their original order.
+ */
+class ReferenceBuffer implements JarIndexer {
+	private final List<MethodDefEntry> callers = new ArrayList<>();
+	private final List<Object> references = new ArrayList<>();
+
+	@Override
+	public void indexMethodReference(MethodDefEntry callerEntry, MethodEntry referencedEntry) {
+		callers.add(callerEntry);
+		references.add(referencedEntry);
+	}
+
+	@Override
+	public void indexFieldReference(MethodDefEntry callerEntry, FieldEntry referencedEntry) {
+		callers.add(callerEntry);
+		references.add(referencedEntry);
+	}
+
+	@Override
+	public void indexLambda(MethodDefEntry callerEntry, Lambda lambda) {
+		callers.add(callerEntry);
+		references.add(lambda);
+	}
+
+	void replay(JarIndexer indexer) {
+		for (int i = 0; i < callers.size(); i++) {
+			MethodDefEntry caller = callers.get(i);
+			Object reference = references.get(i);
+
+			if (reference instanceof MethodEntry) {
+				indexer.indexMethodReference(caller, (MethodEntry) reference);
+			} else if (reference instanceof FieldEntry) {
+				indexer.indexFieldReference(caller, (FieldEntry) reference);
+			} else {
+				indexer.indexLambda(caller, (Lambda) reference);
+			}
+		}
+
+		callers.clear();
+		references.clear();
+	}
+}
@@ -12,6 +12,11 @@ import cuchaz.enigma.translation.representation.entry.*;
 import java.util.Collection;
 import java.util.Map;
 
+/**
+ * Indexes the references between entries. While a jar is being indexed the references are collected in multimaps;
+ * once the index is complete, {@link #compact()} can convert them into much smaller int tables, from which the
+ * {@link EntryReference} objects are created on demand.
+ */
 public class ReferenceIndex implements JarIndexer {
 	private Multimap<MethodEntry, MethodEntry> methodReferences = HashMultimap.create();
 
@@ -21,8 +26,16 @@ public class ReferenceIndex implements JarIndexer {
 	private Multimap<ClassEntry, EntryReference<ClassEntry, FieldDefEntry>> fieldTypeReferences = HashMultimap.create();
 	private Multimap<ClassEntry, EntryReference<ClassEntry, MethodDefEntry>> methodTypeReferences = HashMultimap.create();
 
+	private CompactEntryMultimap<MethodEntry, MethodEntry> compactMethodReferences;
+	private CompactReferences<MethodEntry, MethodDefEntry> compactReferencesToMethods;
+	private CompactReferences<ClassEntry, MethodDefEntry> compactReferencesToClasses;
+	private CompactReferences<FieldEntry, MethodDefEntry> compactReferencesToFields;
+	private CompactReferences<ClassEntry, FieldDefEntry> compactFieldTypeReferences;
+	private CompactReferences<ClassEntry, MethodDefEntry> compactMethodTypeReferences;
+
 	@Override
 	public void indexMethod(MethodDefEntry methodEntry) {
+		checkNotCompact();
 	    indexMethodDescriptor(methodEntry, methodEntry.getDesc());
 	}
 
@@ -44,6 +57,7 @@ public class ReferenceIndex implements JarIndexer {
 
 	@Override
 	public void indexField(FieldDefEntry fieldEntry) {
+		checkNotCompact();
 	    indexFieldTypeDescriptor(fieldEntry, fieldEntry.getDesc());
 	}
 
@@ -58,6 +72,7 @@ public class ReferenceIndex implements JarIndexer {
 
 	@Override
 	public void indexMethodReference(MethodDefEntry callerEntry, MethodEntry referencedEntry) {
+		checkNotCompact();
 		referencesToMethods.put(referencedEntry, new EntryReference<>(referencedEntry, referencedEntry.getName(), callerEntry));
 		methodReferences.put(callerEntry, referencedEntry);
 
@@ -69,6 +84,7 @@ public class ReferenceIndex implements JarIndexer {
 
 	@Override
 	public void indexFieldReference(MethodDefEntry callerEntry, FieldEntry referencedEntry) {
+		checkNotCompact();
 		referencesToFields.put(referencedEntry, new EntryReference<>(referencedEntry, referencedEntry.getName(), callerEntry));
 	}
 
@@ -85,8 +101,20 @@ public class ReferenceIndex implements JarIndexer {
 		indexMethodDescriptor(callerEntry, lambda.getInstantiatedMethodType());
 	}
 
+	void merge(ReferenceIndex other) {
+		checkNotCompact();
+		other.checkNotCompact();
+		methodReferences.putAll(other.methodReferences);
+		referencesToMethods.putAll(other.referencesToMethods);
+		referencesToClasses.putAll(other.referencesToClasses);
+		referencesToFields.putAll(other.referencesToFields);
+		fieldTypeReferences.putAll(other.fieldTypeReferences);
+		methodTypeReferences.putAll(other.methodTypeReferences);
+	}
+
 	@Override
 	public void processIndex(JarIndex index) {
+		checkNotCompact();
 		methodReferences = remapReferences(index, methodReferences);
 		referencesToMethods = remapReferencesTo(index, referencesToMethods);
 		referencesToClasses = remapReferencesTo(index, referencesToClasses);
@@ -95,6 +123,42 @@ public class ReferenceIndex implements JarIndexer {
 		methodTypeReferences = remapReferencesTo(index, methodTypeReferences);
 	}
 
+	/**
+	 * Converts the references into compact int tables. Queries keep working as before, but nothing can be indexed or
+	 * merged into this index afterwards.
+	 */
+	public void compact() {
+		if (isCompact()) {
+			return;
+		}
+
+		EntryTable table = new EntryTable();
+		compactMethodReferences = new CompactEntryMultimap<>(methodReferences, table);
+		compactReferencesToMethods = new CompactReferences<>(referencesToMethods, table);
+		compactReferencesToClasses = new CompactReferences<>(referencesToClasses, table);
+		compactReferencesToFields = new CompactReferences<>(referencesToFields, table);
+		compactFieldTypeReferences = new CompactReferences<>(fieldTypeReferences, table);
+		compactMethodTypeReferences = new CompactReferences<>(methodTypeReferences, table);
+		table.freeze();
+
+		methodReferences = null;
+		referencesToMethods = null;
+		referencesToClasses = null;
+		referencesToFields = null;
+		fieldTypeReferences = null;
+		methodTypeReferences = null;
+	}
+
+	public boolean isCompact() {
+		return compactMethodReferences != null;
+	}
+
+	private void checkNotCompact() {
+		if (isCompact()) {
+			throw new IllegalStateException("Cannot modify a compacted reference index");
+		}
+	}
+
 	private <K extends Entry<?>, V extends Entry<?>> Multimap<K, V> remapReferences(JarIndex index, Multimap<K, V> multimap) {
 		Multimap<K, V> resolved = HashMultimap.create(multimap.keySet().size(), multimap.size() / multimap.keySet().size());
 		for (Map.Entry<K, V> entry : multimap.entries()) {
@@ -120,27 +184,51 @@ public class ReferenceIndex implements JarIndexer {
 		return index.getEntryResolver().resolveFirstReference(reference, ResolutionStrategy.RESOLVE_CLOSEST);
 	}
 
+	Multimap<MethodEntry, MethodEntry> methodReferences() {
+		return isCompact() ? compactMethodReferences.toMultimap() : methodReferences;
+	}
+
+	Multimap<MethodEntry, EntryReference<MethodEntry, MethodDefEntry>> referencesToMethods() {
+		return isCompact() ? compactReferencesToMethods.toMultimap() : referencesToMethods;
+	}
+
+	Multimap<ClassEntry, EntryReference<ClassEntry, MethodDefEntry>> referencesToClasses() {
+		return isCompact() ? compactReferencesToClasses.toMultimap() : referencesToClasses;
+	}
+
+	Multimap<FieldEntry, EntryReference<FieldEntry, MethodDefEntry>> referencesToFields() {
+		return isCompact() ? compactReferencesToFields.toMultimap() : referencesToFields;
+	}
+
+	Multimap<ClassEntry, EntryReference<ClassEntry, FieldDefEntry>> fieldTypeReferences() {
+		return isCompact() ? compactFieldTypeReferences.toMultimap() : fieldTypeReferences;
+	}
+
+	Multimap<ClassEntry, EntryReference<ClassEntry, MethodDefEntry>> methodTypeReferences() {
+		return isCompact() ? compactMethodTypeReferences.toMultimap() : methodTypeReferences;
+	}
+
 	public Collection<MethodEntry> getMethodsReferencedBy(MethodEntry entry) {
-		return methodReferences.get(entry);
+		return isCompact() ? compactMethodReferences.get(entry) : methodReferences.get(entry);
 	}
 
 	public Collection<EntryReference<FieldEntry, MethodDefEntry>> getReferencesToField(FieldEntry entry) {
-		return referencesToFields.get(entry);
+		return isCompact() ? compactReferencesToFields.get(entry) : referencesToFields.get(entry);
 	}
 
 	public Collection<EntryReference<ClassEntry, MethodDefEntry>> getReferencesToClass(ClassEntry entry) {
-		return referencesToClasses.get(entry);
+		return isCompact() ? compactReferencesToClasses.get(entry) : referencesToClasses.get(entry);
 	}
 
 	public Collection<EntryReference<MethodEntry, MethodDefEntry>> getReferencesToMethod(MethodEntry entry) {
-		return referencesToMethods.get(entry);
+		return isCompact() ? compactReferencesToMethods.get(entry) : referencesToMethods.get(entry);
 	}
 
 	public Collection<EntryReference<ClassEntry, FieldDefEntry>> getFieldTypeReferencesToClass(ClassEntry entry) {
-		return fieldTypeReferences.get(entry);
+		return isCompact() ? compactFieldTypeReferences.get(entry) : fieldTypeReferences.get(entry);
 	}
 
 	public Collection<EntryReference<ClassEntry, MethodDefEntry>> getMethodTypeReferencesToClass(ClassEntry entry) {
-		return methodTypeReferences.get(entry);
+		return isCompact() ? compactMethodTypeReferences.get(entry) : methodTypeReferences.get(entry);
 	}
 }
@@ -0,0 +1,502 @@
+package cuchaz.enigma.bytecode;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.ModuleVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.TypePath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Forwards every event of a single class read to several visitors, so that they can all be driven by one pass over
+ * the class file.
+ * <p>
+ * The visitors see the same {@link Label} instances, so this is meant for analysis visitors rather than writers.
+ * Frame arrays are copied for each visitor, since some visitors rewrite them in place.
+ */
+public class FanOutClassVisitor extends ClassVisitor {
+	private final List<ClassVisitor> visitors;
+
+	private FanOutClassVisitor(List<ClassVisitor> visitors) {
+		super(Opcodes.ASM7);
+		this.visitors = visitors;
+	}
+
+	public static ClassVisitor of(ClassVisitor... visitors) {
+		return of(Arrays.asList(visitors));
+	}
+
+	/**
+	 * Combines the given visitors, skipping null ones. Never returns null, as a class must always be visited by
+	 * something; with no visitors left, the events are simply dropped.
+	 */
+	public static ClassVisitor of(List<ClassVisitor> visitors) {
+		ClassVisitor visitor = combine(visitors, FanOutClassVisitor::new);
+		return visitor != null ? visitor : new ClassVisitor(Opcodes.ASM7) {
+		};
+	}
+
+	private static <V> V combine(List<V> visitors, Function<List<V>, V> fanOut) {
+		List<V> present = new ArrayList<>(visitors.size());
+		for (V visitor : visitors) {
+			if (visitor != null) {
+				present.add(visitor);
+			}
+		}
+
+		if (present.isEmpty()) {
+			return null;
+		} else if (present.size() == 1) {
+			return present.get(0);
+		}
+		return fanOut.apply(present);
+	}
+
+	private static <V, R> List<R> collect(List<V> visitors, Function<V, R> call) {
+		List<R> results = new ArrayList<>(visitors.size());
+		for (V visitor : visitors) {
+			results.add(call.apply(visitor));
+		}
+		return results;
+	}
+
+	@Override
+	public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visit(version, access, name, signature, superName, interfaces != null ? interfaces.clone() : null);
+		}
+	}
+
+	@Override
+	public void visitSource(String source, String debug) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitSource(source, debug);
+		}
+	}
+
+	@Override
+	public ModuleVisitor visitModule(String name, int access, String version) {
+		return combine(collect(visitors, visitor -> visitor.visitModule(name, access, version)), FanOutModuleVisitor::new);
+	}
+
+	@Override
+	public void visitNestHost(String nestHost) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitNestHost(nestHost);
+		}
+	}
+
+	@Override
+	public void visitOuterClass(String owner, String name, String descriptor) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitOuterClass(owner, name, descriptor);
+		}
+	}
+
+	@Override
+	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+		return combine(collect(visitors, visitor -> visitor.visitAnnotation(descriptor, visible)), FanOutAnnotationVisitor::new);
+	}
+
+	@Override
+	public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+		return combine(collect(visitors, visitor -> visitor.visitTypeAnnotation(typeRef, typePath, descriptor, visible)), FanOutAnnotationVisitor::new);
+	}
+
+	@Override
+	public void visitAttribute(Attribute attribute) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitAttribute(attribute);
+		}
+	}
+
+	@Override
+	public void visitNestMember(String nestMember) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitNestMember(nestMember);
+		}
+	}
+
+	@Override
+	public void visitInnerClass(String name, String outerName, String innerName, int access) {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitInnerClass(name, outerName, innerName, access);
+		}
+	}
+
+	@Override
+	public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+		return combine(collect(visitors, visitor -> visitor.visitField(access, name, descriptor, signature, value)), FanOutFieldVisitor::new);
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+		return combine(collect(visitors, visitor -> visitor.visitMethod(access, name, descriptor, signature, exceptions != null ? exceptions.clone() : null)), FanOutMethodVisitor::new);
+	}
+
+	@Override
+	public void visitEnd() {
+		for (ClassVisitor visitor : visitors) {
+			visitor.visitEnd();
+		}
+	}
+
+	private static class FanOutModuleVisitor extends ModuleVisitor {
+		private final List<ModuleVisitor> visitors;
+
+		FanOutModuleVisitor(List<ModuleVisitor> visitors) {
+			super(Opcodes.ASM7);
+			this.visitors = visitors;
+		}
+
+		@Override
+		public void visitMainClass(String mainClass) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitMainClass(mainClass);
+			}
+		}
+
+		@Override
+		public void visitPackage(String packaze) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitPackage(packaze);
+			}
+		}
+
+		@Override
+		public void visitRequire(String module, int access, String version) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitRequire(module, access, version);
+			}
+		}
+
+		@Override
+		public void visitExport(String packaze, int access, String... modules) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitExport(packaze, access, modules != null ? modules.clone() : null);
+			}
+		}
+
+		@Override
+		public void visitOpen(String packaze, int access, String... modules) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitOpen(packaze, access, modules != null ? modules.clone() : null);
+			}
+		}
+
+		@Override
+		public void visitUse(String service) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitUse(service);
+			}
+		}
+
+		@Override
+		public void visitProvide(String service, String... providers) {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitProvide(service, providers.clone());
+			}
+		}
+
+		@Override
+		public void visitEnd() {
+			for (ModuleVisitor visitor : visitors) {
+				visitor.visitEnd();
+			}
+		}
+	}
+
+	private static class FanOutAnnotationVisitor extends AnnotationVisitor {
+		private final List<AnnotationVisitor> visitors;
+
+		FanOutAnnotationVisitor(List<AnnotationVisitor> visitors) {
+			super(Opcodes.ASM7);
+			this.visitors = visitors;
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			for (AnnotationVisitor visitor : visitors) {
+				visitor.visit(name, value);
+			}
+		}
+
+		@Override
+		public void visitEnum(String name, String descriptor, String value) {
+			for (AnnotationVisitor visitor : visitors) {
+				visitor.visitEnum(name, descriptor, value);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+			return combine(collect(visitors, visitor -> visitor.visitAnnotation(name, descriptor)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			return combine(collect(visitors, visitor -> visitor.visitArray(name)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitEnd() {
+			for (AnnotationVisitor visitor : visitors) {
+				visitor.visitEnd();
+			}
+		}
+	}
+
+	private static class FanOutFieldVisitor extends FieldVisitor {
+		private final List<FieldVisitor> visitors;
+
+		FanOutFieldVisitor(List<FieldVisitor> visitors) {
+			super(Opcodes.ASM7);
+			this.visitors = visitors;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitAnnotation(descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitTypeAnnotation(typeRef, typePath, descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitAttribute(Attribute attribute) {
+			for (FieldVisitor visitor : visitors) {
+				visitor.visitAttribute(attribute);
+			}
+		}
+
+		@Override
+		public void visitEnd() {
+			for (FieldVisitor visitor : visitors) {
+				visitor.visitEnd();
+			}
+		}
+	}
+
+	private static class FanOutMethodVisitor extends MethodVisitor {
+		private final List<MethodVisitor> visitors;
+
+		FanOutMethodVisitor(List<MethodVisitor> visitors) {
+			super(Opcodes.ASM7);
+			this.visitors = visitors;
+		}
+
+		@Override
+		public void visitParameter(String name, int access) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitParameter(name, access);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotationDefault() {
+			return combine(collect(visitors, MethodVisitor::visitAnnotationDefault), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitAnnotation(descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitTypeAnnotation(typeRef, typePath, descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitAnnotableParameterCount(int parameterCount, boolean visible) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitAnnotableParameterCount(parameterCount, visible);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitParameterAnnotation(parameter, descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitAttribute(Attribute attribute) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitAttribute(attribute);
+			}
+		}
+
+		@Override
+		public void visitCode() {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitCode();
+			}
+		}
+
+		@Override
+		public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitFrame(type, numLocal, local != null ? local.clone() : null, numStack, stack != null ? stack.clone() : null);
+			}
+		}
+
+		@Override
+		public void visitInsn(int opcode) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitInsn(opcode);
+			}
+		}
+
+		@Override
+		public void visitIntInsn(int opcode, int operand) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitIntInsn(opcode, operand);
+			}
+		}
+
+		@Override
+		public void visitVarInsn(int opcode, int var) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitVarInsn(opcode, var);
+			}
+		}
+
+		@Override
+		public void visitTypeInsn(int opcode, String type) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitTypeInsn(opcode, type);
+			}
+		}
+
+		@Override
+		public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitFieldInsn(opcode, owner, name, descriptor);
+			}
+		}
+
+		@Override
+		public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			}
+		}
+
+		@Override
+		public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments.clone());
+			}
+		}
+
+		@Override
+		public void visitJumpInsn(int opcode, Label label) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitJumpInsn(opcode, label);
+			}
+		}
+
+		@Override
+		public void visitLabel(Label label) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitLabel(label);
+			}
+		}
+
+		@Override
+		public void visitLdcInsn(Object value) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitLdcInsn(value);
+			}
+		}
+
+		@Override
+		public void visitIincInsn(int var, int increment) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitIincInsn(var, increment);
+			}
+		}
+
+		@Override
+		public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitTableSwitchInsn(min, max, dflt, labels.clone());
+			}
+		}
+
+		@Override
+		public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitLookupSwitchInsn(dflt, keys.clone(), labels.clone());
+			}
+		}
+
+		@Override
+		public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitMultiANewArrayInsn(descriptor, numDimensions);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitInsnAnnotation(typeRef, typePath, descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitTryCatchBlock(start, end, handler, type);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitTryCatchAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitTryCatchAnnotation(typeRef, typePath, descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitLocalVariable(name, descriptor, signature, start, end, index);
+			}
+		}
+
+		@Override
+		public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible) {
+			return combine(collect(visitors, visitor -> visitor.visitLocalVariableAnnotation(typeRef, typePath, start.clone(), end.clone(), index.clone(), descriptor, visible)), FanOutAnnotationVisitor::new);
+		}
+
+		@Override
+		public void visitLineNumber(int line, Label start) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitLineNumber(line, start);
+			}
+		}
+
+		@Override
+		public void visitMaxs(int maxStack, int maxLocals) {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitMaxs(maxStack, maxLocals);
+			}
+		}
+
+		@Override
+		public void visitEnd() {
+			for (MethodVisitor visitor : visitors) {
+				visitor.visitEnd();
+			}
+		}
+	}
+}
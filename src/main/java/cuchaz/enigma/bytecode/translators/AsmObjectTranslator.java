@@ -43,4 +43,31 @@ public class AsmObjectTranslator {
 		}
 		return value;
 	}
+
+	public static Type translateType(TranslationCache cache, Type type) {
+		switch (type.getSort()) {
+			case Type.OBJECT:
+				return Type.getObjectType(cache.translateClass(type.getInternalName()));
+			case Type.ARRAY:
+				return Type.getType(cache.translateTypeDesc(type.getDescriptor()));
+			case Type.METHOD:
+				return Type.getMethodType(cache.translateMethodDesc(type.getDescriptor()));
+		}
+		return type;
+	}
+
+	public static Handle translateHandle(TranslationCache cache, Handle handle) {
+		MethodEntry translatedMethod = cache.translateMethod(handle.getOwner(), handle.getName(), handle.getDesc());
+		ClassEntry ownerClass = translatedMethod.getParent();
+		return new Handle(handle.getTag(), ownerClass.getFullName(), translatedMethod.getName(), translatedMethod.getDesc().toString(), handle.isInterface());
+	}
+
+	public static Object translateValue(TranslationCache cache, Object value) {
+		if (value instanceof Type) {
+			return translateType(cache, (Type) value);
+		} else if (value instanceof Handle) {
+			return translateHandle(cache, (Handle) value);
+		}
+		return value;
+	}
 }
@@ -7,45 +7,48 @@ import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import org.objectweb.asm.AnnotationVisitor;
 
 public class TranslationAnnotationVisitor extends AnnotationVisitor {
-	private final Translator translator;
+	private final TranslationCache cache;
 	private final ClassEntry annotationEntry;
 
 	public TranslationAnnotationVisitor(Translator translator, ClassEntry annotationEntry, int api, AnnotationVisitor av) {
+		this(new TranslationCache(translator), annotationEntry, api, av);
+	}
+
+	public TranslationAnnotationVisitor(TranslationCache cache, ClassEntry annotationEntry, int api, AnnotationVisitor av) {
 		super(api, av);
-		this.translator = translator;
+		this.cache = cache;
 		this.annotationEntry = annotationEntry;
 	}
 
 	@Override
 	public void visit(String name, Object value) {
-		super.visit(name, AsmObjectTranslator.translateValue(translator, value));
+		super.visit(name, AsmObjectTranslator.translateValue(cache, value));
 	}
 
 	@Override
 	public AnnotationVisitor visitArray(String name) {
-		return new TranslationAnnotationVisitor(translator, annotationEntry, api, super.visitArray(name));
+		return new TranslationAnnotationVisitor(cache, annotationEntry, api, super.visitArray(name));
 	}
 
 	@Override
 	public AnnotationVisitor visitAnnotation(String name, String desc) {
-		TypeDescriptor type = new TypeDescriptor(desc);
 		if (name != null) {
-			FieldEntry annotationField = translator.translate(new FieldEntry(annotationEntry, name, type));
+			FieldEntry annotationField = cache.translateField(annotationEntry.getFullName(), name, desc);
 			return super.visitAnnotation(annotationField.getName(), annotationField.getDesc().toString());
 		} else {
-			return super.visitAnnotation(null, translator.translate(type).toString());
+			return super.visitAnnotation(null, cache.translateTypeDesc(desc));
 		}
 	}
 
 	@Override
 	public void visitEnum(String name, String desc, String value) {
 		TypeDescriptor type = new TypeDescriptor(desc);
-		FieldEntry enumField = translator.translate(new FieldEntry(type.getTypeEntry(), value, type));
+		FieldEntry enumField = cache.translateField(type.getTypeEntry().getFullName(), value, desc);
 		if (name != null) {
-			FieldEntry annotationField = translator.translate(new FieldEntry(annotationEntry, name, type));
+			FieldEntry annotationField = cache.translateField(annotationEntry.getFullName(), name, desc);
 			super.visitEnum(annotationField.getName(), annotationField.getDesc().toString(), enumField.getName());
 		} else {
-			super.visitEnum(null, translator.translate(type).toString(), enumField.getName());
+			super.visitEnum(null, cache.translateTypeDesc(desc), enumField.getName());
 		}
 	}
 }
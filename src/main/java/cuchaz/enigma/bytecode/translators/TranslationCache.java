@@ -0,0 +1,98 @@
+package cuchaz.enigma.bytecode.translators;
+
+import cuchaz.enigma.translation.Translator;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.Signature;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the translation of the raw names and descriptors seen by the translation visitors, so that remapping
+ * an instruction or frame that repeats an earlier reference is a single lookup. Descriptors and signatures are
+ * remapped class by class through the same class name cache.
+ * <p>
+ * One cache should be shared by every class of a single export and discarded afterwards, since it does not notice
+ * mapping changes. It is safe to use from several threads at once.
+ */
+public class TranslationCache {
+	private final Translator translator;
+
+	private final ConcurrentMap<String, String> classNames = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> typeDescs = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> methodDescs = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> typeSignatures = new ConcurrentHashMap<>();
+	private final ConcurrentMap<MemberKey, FieldEntry> fields = new ConcurrentHashMap<>();
+	private final ConcurrentMap<MemberKey, MethodEntry> methods = new ConcurrentHashMap<>();
+
+	public TranslationCache(Translator translator) {
+		this.translator = translator;
+	}
+
+	public Translator getTranslator() {
+		return translator;
+	}
+
+	public String translateClass(String name) {
+		return classNames.computeIfAbsent(name, n -> translator.translate(new ClassEntry(n)).getFullName());
+	}
+
+	public String translateTypeDesc(String desc) {
+		return typeDescs.computeIfAbsent(desc, d -> new TypeDescriptor(d).remap(this::translateClass).toString());
+	}
+
+	public String translateMethodDesc(String desc) {
+		return methodDescs.computeIfAbsent(desc, d -> new MethodDescriptor(d).remap(this::translateClass).toString());
+	}
+
+	public String translateTypeSignature(String signature) {
+		if (signature == null) {
+			return null;
+		}
+		return typeSignatures.computeIfAbsent(signature, s -> Signature.createTypedSignature(s).remap(this::translateClass).toString());
+	}
+
+	public FieldEntry translateField(String owner, String name, String desc) {
+		return fields.computeIfAbsent(new MemberKey(owner, name, desc), key -> translator.translate(new FieldEntry(new ClassEntry(owner), name, new TypeDescriptor(desc))));
+	}
+
+	public MethodEntry translateMethod(String owner, String name, String desc) {
+		return methods.computeIfAbsent(new MemberKey(owner, name, desc), key -> translator.translate(new MethodEntry(new ClassEntry(owner), name, new MethodDescriptor(desc))));
+	}
+
+	private static final class MemberKey {
+		private final String owner;
+		private final String name;
+		private final String desc;
+		private final int hash;
+
+		MemberKey(String owner, String name, String desc) {
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+			this.hash = Objects.hash(owner, name, desc);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof MemberKey)) {
+				return false;
+			}
+			MemberKey other = (MemberKey) obj;
+			return owner.equals(other.owner) && name.equals(other.name) && desc.equals(other.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
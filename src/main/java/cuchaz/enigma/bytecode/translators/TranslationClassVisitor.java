@@ -12,7 +12,6 @@
 package cuchaz.enigma.bytecode.translators;
 
 import cuchaz.enigma.translation.Translator;
-import cuchaz.enigma.translation.representation.MethodDescriptor;
 import cuchaz.enigma.translation.representation.TypeDescriptor;
 import cuchaz.enigma.translation.representation.entry.*;
 import org.objectweb.asm.*;
@@ -21,12 +20,18 @@ import java.util.Arrays;
 
 public class TranslationClassVisitor extends ClassVisitor {
 	private final Translator translator;
+	private final TranslationCache cache;
 
 	private ClassDefEntry obfClassEntry;
 
 	public TranslationClassVisitor(Translator translator, int api, ClassVisitor cv) {
+		this(new TranslationCache(translator), api, cv);
+	}
+
+	public TranslationClassVisitor(TranslationCache cache, int api, ClassVisitor cv) {
 		super(api, cv);
-		this.translator = translator;
+		this.translator = cache.getTranslator();
+		this.cache = cache;
 	}
 
 	@Override
@@ -45,7 +50,7 @@ public class TranslationClassVisitor extends ClassVisitor {
 		FieldDefEntry entry = FieldDefEntry.parse(obfClassEntry, access, name, desc, signature);
 		FieldDefEntry translatedEntry = translator.translate(entry);
 		FieldVisitor fv = super.visitField(translatedEntry.getAccess().getFlags(), translatedEntry.getName(), translatedEntry.getDesc().toString(), translatedEntry.getSignature().toString(), value);
-		return new TranslationFieldVisitor(translator, translatedEntry, api, fv);
+		return new TranslationFieldVisitor(cache, translatedEntry, api, fv);
 	}
 
 	@Override
@@ -54,10 +59,10 @@ public class TranslationClassVisitor extends ClassVisitor {
 		MethodDefEntry translatedEntry = translator.translate(entry);
 		String[] translatedExceptions = new String[exceptions.length];
 		for (int i = 0; i < exceptions.length; i++) {
-			translatedExceptions[i] = translator.translate(new ClassEntry(exceptions[i])).getFullName();
+			translatedExceptions[i] = cache.translateClass(exceptions[i]);
 		}
 		MethodVisitor mv = super.visitMethod(translatedEntry.getAccess().getFlags(), translatedEntry.getName(), translatedEntry.getDesc().toString(), translatedEntry.getSignature().toString(), translatedExceptions);
-		return new TranslationMethodVisitor(translator, obfClassEntry, entry, api, mv);
+		return new TranslationMethodVisitor(cache, obfClassEntry, entry, api, mv);
 	}
 
 	@Override
@@ -79,7 +84,7 @@ public class TranslationClassVisitor extends ClassVisitor {
 	@Override
 	public void visitOuterClass(String owner, String name, String desc) {
 		if (desc != null) {
-			MethodEntry translatedEntry = translator.translate(new MethodEntry(new ClassEntry(owner), name, new MethodDescriptor(desc)));
+			MethodEntry translatedEntry = cache.translateMethod(owner, name, desc);
 			super.visitOuterClass(translatedEntry.getParent().getFullName(), translatedEntry.getName(), translatedEntry.getDesc().toString());
 		} else {
 			super.visitOuterClass(owner, name, desc);
@@ -88,15 +93,15 @@ public class TranslationClassVisitor extends ClassVisitor {
 
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-		TypeDescriptor translatedDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitAnnotation(translatedDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, translatedDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitAnnotation(translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 
 	@Override
 	public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
-		TypeDescriptor translatedDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitTypeAnnotation(typeRef, typePath, translatedDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, translatedDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitTypeAnnotation(typeRef, typePath, translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 }
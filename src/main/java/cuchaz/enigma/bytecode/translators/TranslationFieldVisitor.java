@@ -9,25 +9,29 @@ import org.objectweb.asm.TypePath;
 
 public class TranslationFieldVisitor extends FieldVisitor {
 	private final FieldDefEntry fieldEntry;
-	private final Translator translator;
+	private final TranslationCache cache;
 
 	public TranslationFieldVisitor(Translator translator, FieldDefEntry fieldEntry, int api, FieldVisitor fv) {
+		this(new TranslationCache(translator), fieldEntry, api, fv);
+	}
+
+	public TranslationFieldVisitor(TranslationCache cache, FieldDefEntry fieldEntry, int api, FieldVisitor fv) {
 		super(api, fv);
-		this.translator = translator;
+		this.cache = cache;
 		this.fieldEntry = fieldEntry;
 	}
 
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-		TypeDescriptor typeDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitAnnotation(typeDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, typeDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitAnnotation(translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 
 	@Override
 	public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
-		TypeDescriptor typeDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitAnnotation(typeDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, typeDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitAnnotation(translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 }
@@ -2,8 +2,6 @@ package cuchaz.enigma.bytecode.translators;
 
 import cuchaz.enigma.translation.LocalNameGenerator;
 import cuchaz.enigma.translation.Translator;
-import cuchaz.enigma.translation.representation.MethodDescriptor;
-import cuchaz.enigma.translation.representation.Signature;
 import cuchaz.enigma.translation.representation.TypeDescriptor;
 import cuchaz.enigma.translation.representation.entry.*;
 import org.objectweb.asm.*;
@@ -15,27 +13,31 @@ public class TranslationMethodVisitor extends MethodVisitor {
 	private final ClassDefEntry ownerEntry;
 	private final MethodDefEntry methodEntry;
 	private final Translator translator;
+	private final TranslationCache cache;
 
 	private boolean hasParameterMeta;
 
 	public TranslationMethodVisitor(Translator translator, ClassDefEntry ownerEntry, MethodDefEntry methodEntry, int api, MethodVisitor mv) {
+		this(new TranslationCache(translator), ownerEntry, methodEntry, api, mv);
+	}
+
+	public TranslationMethodVisitor(TranslationCache cache, ClassDefEntry ownerEntry, MethodDefEntry methodEntry, int api, MethodVisitor mv) {
 		super(api, mv);
-		this.translator = translator;
+		this.translator = cache.getTranslator();
+		this.cache = cache;
 		this.ownerEntry = ownerEntry;
 		this.methodEntry = methodEntry;
 	}
 
 	@Override
 	public void visitFieldInsn(int opcode, String owner, String name, String desc) {
-		FieldEntry entry = new FieldEntry(new ClassEntry(owner), name, new TypeDescriptor(desc));
-		FieldEntry translatedEntry = translator.translate(entry);
+		FieldEntry translatedEntry = cache.translateField(owner, name, desc);
 		super.visitFieldInsn(opcode, translatedEntry.getParent().getFullName(), translatedEntry.getName(), translatedEntry.getDesc().toString());
 	}
 
 	@Override
 	public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
-		MethodEntry entry = new MethodEntry(new ClassEntry(owner), name, new MethodDescriptor(desc));
-		MethodEntry translatedEntry = translator.translate(entry);
+		MethodEntry translatedEntry = cache.translateMethod(owner, name, desc);
 		super.visitMethodInsn(opcode, translatedEntry.getParent().getFullName(), translatedEntry.getName(), translatedEntry.getDesc().toString(), itf);
 	}
 
@@ -53,8 +55,7 @@ public class TranslationMethodVisitor extends MethodVisitor {
 		for (int i = 0; i < count; i++) {
 			Object object = array[i];
 			if (object instanceof String) {
-				String type = (String) object;
-				array[i] = translator.translate(new ClassEntry(type)).getFullName();
+				array[i] = cache.translateClass((String) object);
 			}
 		}
 		return array;
@@ -62,56 +63,53 @@ public class TranslationMethodVisitor extends MethodVisitor {
 
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-		TypeDescriptor typeDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitAnnotation(typeDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, typeDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitAnnotation(translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 
 	@Override
 	public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
-		TypeDescriptor typeDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitParameterAnnotation(parameter, typeDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, typeDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitParameterAnnotation(parameter, translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 
 	@Override
 	public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
-		TypeDescriptor typeDesc = translator.translate(new TypeDescriptor(desc));
-		AnnotationVisitor av = super.visitTypeAnnotation(typeRef, typePath, typeDesc.toString(), visible);
-		return new TranslationAnnotationVisitor(translator, typeDesc.getTypeEntry(), api, av);
+		String translatedDesc = cache.translateTypeDesc(desc);
+		AnnotationVisitor av = super.visitTypeAnnotation(typeRef, typePath, translatedDesc, visible);
+		return new TranslationAnnotationVisitor(cache, new TypeDescriptor(translatedDesc).getTypeEntry(), api, av);
 	}
 
 	@Override
 	public void visitTypeInsn(int opcode, String type) {
-		ClassEntry translatedEntry = translator.translate(new ClassEntry(type));
-		super.visitTypeInsn(opcode, translatedEntry.getFullName());
+		super.visitTypeInsn(opcode, cache.translateClass(type));
 	}
 
 	@Override
 	public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
-		MethodDescriptor translatedMethodDesc = translator.translate(new MethodDescriptor(desc));
 		Object[] translatedBsmArgs = new Object[bsmArgs.length];
 		for (int i = 0; i < bsmArgs.length; i++) {
-			translatedBsmArgs[i] = AsmObjectTranslator.translateValue(translator, bsmArgs[i]);
+			translatedBsmArgs[i] = AsmObjectTranslator.translateValue(cache, bsmArgs[i]);
 		}
-		super.visitInvokeDynamicInsn(name, translatedMethodDesc.toString(), AsmObjectTranslator.translateHandle(translator, bsm), translatedBsmArgs);
+		super.visitInvokeDynamicInsn(name, cache.translateMethodDesc(desc), AsmObjectTranslator.translateHandle(cache, bsm), translatedBsmArgs);
 	}
 
 	@Override
 	public void visitLdcInsn(Object cst) {
-		super.visitLdcInsn(AsmObjectTranslator.translateValue(translator, cst));
+		super.visitLdcInsn(AsmObjectTranslator.translateValue(cache, cst));
 	}
 
 	@Override
 	public void visitMultiANewArrayInsn(String desc, int dims) {
-		super.visitMultiANewArrayInsn(translator.translate(new TypeDescriptor(desc)).toString(), dims);
+		super.visitMultiANewArrayInsn(cache.translateTypeDesc(desc), dims);
 	}
 
 	@Override
 	public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
 		if (type != null) {
-			ClassEntry translatedEntry = translator.translate(new ClassEntry(type));
-			super.visitTryCatchBlock(start, end, handler, translatedEntry.getFullName());
+			super.visitTryCatchBlock(start, end, handler, cache.translateClass(type));
 		} else {
 			super.visitTryCatchBlock(start, end, handler, type);
 		}
@@ -121,7 +119,7 @@ public class TranslationMethodVisitor extends MethodVisitor {
 	public void visitLocalVariable(String name, String desc, String signature, Label start, Label end, int index) {
 		hasParameterMeta = true;
 
-		String translatedSignature = translator.translate(Signature.createTypedSignature(signature)).toString();
+		String translatedSignature = cache.translateTypeSignature(signature);
 		int argumentIndex = methodEntry.getArgumentIndex(ownerEntry, index);
 
 		if (argumentIndex >= 0) {
@@ -146,8 +144,7 @@ public class TranslationMethodVisitor extends MethodVisitor {
 			super.visitLocalVariable(translatedName, translatedEntry.getDesc().toString(), translatedSignature, start, end, index);
 		} else {
 			// Handle "this" variable
-			TypeDescriptor translatedDesc = translator.translate(new TypeDescriptor(desc));
-			super.visitLocalVariable(name, translatedDesc.toString(), translatedSignature, start, end, index);
+			super.visitLocalVariable(name, cache.translateTypeDesc(desc), translatedSignature, start, end, index);
 		}
 	}
 
@@ -4,8 +4,12 @@ import cuchaz.enigma.EnigmaProject;
 import cuchaz.enigma.ProgressListener;
 
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DecompileCommand extends Command {
+	private static final int REPORTED_SLOW_CLASSES = 10;
 
 	public DecompileCommand() {
 		super("decompile");
@@ -13,7 +17,7 @@ public class DecompileCommand extends Command {
 
 	@Override
 	public String getUsage() {
-		return "<in jar> <out folder> [<mappings file>]";
+		return "<in jar> <out folder|zip> [<mappings file>]";
 	}
 
 	@Override
@@ -24,7 +28,8 @@ public class DecompileCommand extends Command {
 	@Override
 	public void run(String... args) throws Exception {
 		Path fileJarIn = getReadableFile(getArg(args, 0, "in jar", true)).toPath();
-		Path fileJarOut = getWritableFolder(getArg(args, 1, "out folder", true)).toPath();
+		String out = getArg(args, 1, "out folder", true);
+		Path fileJarOut = EnigmaProject.JarExport.isArchive(Paths.get(out)) ? getWritableFile(out).toPath() : getWritableFolder(out).toPath();
 		Path fileMappings = getReadablePath(getArg(args, 2, "mappings file", false));
 
 		EnigmaProject project = openProject(fileJarIn, fileMappings);
@@ -32,8 +37,11 @@ public class DecompileCommand extends Command {
 		ProgressListener progress = new ConsoleProgressListener();
 
 		EnigmaProject.JarExport jar = project.exportRemappedJar(progress);
-		EnigmaProject.SourceExport source = jar.decompile(progress);
+		Map<String, Long> timings = jar.writeSources(fileJarOut, progress);
 
-		source.write(fileJarOut, progress);
+		System.out.println("Slowest classes:");
+		timings.entrySet().stream()
+				.limit(REPORTED_SLOW_CLASSES)
+				.forEach(timing -> System.out.println(String.format("\t%6d ms  %s", TimeUnit.NANOSECONDS.toMillis(timing.getValue()), timing.getKey())));
 	}
 }
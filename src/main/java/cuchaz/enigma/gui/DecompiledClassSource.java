@@ -30,6 +30,9 @@ public class DecompiledClassSource {
 
 	private final Map<TokenHighlightType, Collection<Token>> highlightedTokens = new EnumMap<>(TokenHighlightType.class);
 
+	private final Map<Token, RemappedToken> remappedTokens = new HashMap<>();
+	private boolean remapped;
+
 	public DecompiledClassSource(ClassEntry classEntry, SourceIndex index) {
 		this.classEntry = classEntry;
 		this.obfuscatedIndex = index;
@@ -41,15 +44,84 @@ public class DecompiledClassSource {
 	}
 
 	public void remapSource(EnigmaProject project, Translator translator) {
+		remappedTokens.clear();
+		for (Token token : obfuscatedIndex.referenceTokens()) {
+			remappedTokens.put(token, remapToken(project, token, translator));
+		}
+
+		remapped = true;
+		applyRemappedTokens();
+	}
+
+	/**
+	 * Remaps only the tokens whose names could have been affected by changes to the mappings of the given entries,
+	 * keeping the names of every other token from the last remap.
+	 *
+	 * @return whether the remapped source changed
+	 */
+	public boolean remapSource(EnigmaProject project, Translator translator, Collection<Entry<?>> changedEntries) {
+		if (!remapped) {
+			remapSource(project, translator);
+			return true;
+		}
+
+		if (changedEntries.isEmpty()) {
+			return false;
+		}
+
+		Set<Entry<?>> changes = new HashSet<>(changedEntries);
+		EntryResolver resolver = project.getMapper().getObfResolver();
+		Map<Entry<?>, Boolean> affectedEntries = new HashMap<>();
+
+		boolean changed = false;
+		for (Token token : obfuscatedIndex.referenceTokens()) {
+			Entry<?> entry = obfuscatedIndex.getReference(token).getNameableEntry();
+			if (affectedEntries.computeIfAbsent(entry, e -> isAffected(resolver, e, changes))) {
+				RemappedToken remappedToken = remapToken(project, token, translator);
+				if (!remappedToken.equals(remappedTokens.put(token, remappedToken))) {
+					changed = true;
+				}
+			}
+		}
+
+		if (changed) {
+			applyRemappedTokens();
+		}
+
+		return changed;
+	}
+
+	private static boolean isAffected(EntryResolver resolver, Entry<?> entry, Set<Entry<?>> changes) {
+		// an entry is translated through its own mapping and the ones of its parents, each looked up at their root
+		for (Entry<?> ancestor : entry.getAncestry()) {
+			if (changes.contains(ancestor)) {
+				return true;
+			}
+			for (Entry<?> resolved : resolver.resolveEntry(ancestor, ResolutionStrategy.RESOLVE_ROOT)) {
+				if (changes.contains(resolved)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void applyRemappedTokens() {
 		highlightedTokens.clear();
 
 		SourceRemapper remapper = new SourceRemapper(obfuscatedIndex.getSource(), obfuscatedIndex.referenceTokens());
 
-		SourceRemapper.Result remapResult = remapper.remap((token, movedToken) -> remapToken(project, token, movedToken, translator));
+		SourceRemapper.Result remapResult = remapper.remap((token, movedToken) -> {
+			RemappedToken remappedToken = remappedTokens.get(token);
+			if (remappedToken.highlightType != null) {
+				highlightToken(movedToken, remappedToken.highlightType);
+			}
+			return remappedToken.name;
+		});
 		remappedIndex = obfuscatedIndex.remapTo(remapResult);
 	}
 
-	private String remapToken(EnigmaProject project, Token token, Token movedToken, Translator translator) {
+	private RemappedToken remapToken(EnigmaProject project, Token token, Translator translator) {
 		EntryReference<Entry<?>, Entry<?>> reference = obfuscatedIndex.getReference(token);
 
 		Entry<?> entry = reference.getNameableEntry();
@@ -59,23 +131,20 @@ public class DecompiledClassSource {
 		if (project.isRenamable(reference)) {
 			EntryTree.EntryStatus status = getEntryStatus(mapper, entry, translatedEntry);
 			if (status == EntryTree.EntryStatus.MAPPED) {
-				highlightToken(movedToken, TokenHighlightType.DEOBFUSCATED);
-				return translatedEntry.getSourceRemapName();
+				return new RemappedToken(translatedEntry.getSourceRemapName(), TokenHighlightType.DEOBFUSCATED);
 			} else if (status == EntryTree.EntryStatus.READONLY) {
-				highlightToken(movedToken, TokenHighlightType.READONLY);
-				return translatedEntry.getSourceRemapName();
+				return new RemappedToken(translatedEntry.getSourceRemapName(), TokenHighlightType.READONLY);
 			} else {
 				Optional<String> proposedName = proposeName(project, entry);
 				if (proposedName.isPresent()) {
-					highlightToken(movedToken, TokenHighlightType.PROPOSED);
-					return proposedName.get();
+					return new RemappedToken(proposedName.get(), TokenHighlightType.PROPOSED);
 				}
 
-				highlightToken(movedToken, TokenHighlightType.OBFUSCATED);
+				return new RemappedToken(translatedEntry.getSourceRemapName(), TokenHighlightType.OBFUSCATED);
 			}
 		}
 
-		return translatedEntry.getSourceRemapName();
+		return new RemappedToken(translatedEntry.getSourceRemapName(), null);
 	}
 
 	private Optional<String> proposeName(EnigmaProject project, Entry<?> entry) {
@@ -125,6 +194,10 @@ public class DecompiledClassSource {
 		return remappedIndex;
 	}
 
+	public SourceIndex getObfuscatedIndex() {
+		return obfuscatedIndex;
+	}
+
 	public Map<TokenHighlightType, Collection<Token>> getHighlightedTokens() {
 		return highlightedTokens;
 	}
@@ -137,4 +210,30 @@ public class DecompiledClassSource {
 	public String toString() {
 		return remappedIndex.getSource();
 	}
+
+	private static final class RemappedToken {
+		private final String name;
+		@Nullable
+		private final TokenHighlightType highlightType;
+
+		RemappedToken(String name, @Nullable TokenHighlightType highlightType) {
+			this.name = name;
+			this.highlightType = highlightType;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, highlightType);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof RemappedToken)) {
+				return false;
+			}
+
+			RemappedToken other = (RemappedToken) obj;
+			return Objects.equals(name, other.name) && highlightType == other.highlightType;
+		}
+	}
 }
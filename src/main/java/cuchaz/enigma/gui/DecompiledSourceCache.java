@@ -0,0 +1,85 @@
+package cuchaz.enigma.gui;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Iterables;
+import cuchaz.enigma.analysis.SourceIndex;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * Keeps the obfuscated source indices of recently decompiled classes, so that revisiting a class only needs to remap
+ * it. The cache is bounded by the estimated memory footprint of the sources and evicts the least recently used ones.
+ */
+public class DecompiledSourceCache {
+	// rough per-token cost of the token, its text and its reference in the index maps
+	private static final int BYTES_PER_TOKEN = 200;
+
+	private final Cache<Key, SourceIndex> cache;
+
+	public DecompiledSourceCache(long maxBytes) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((Key key, SourceIndex index) -> estimateSize(index))
+				.recordStats()
+				.build();
+	}
+
+	@Nullable
+	public SourceIndex get(ClassEntry classEntry, String settingsKey) {
+		return cache.getIfPresent(new Key(classEntry, settingsKey));
+	}
+
+	public void put(ClassEntry classEntry, String settingsKey, SourceIndex index) {
+		cache.put(new Key(classEntry, settingsKey), index);
+	}
+
+	public boolean contains(ClassEntry classEntry, String settingsKey) {
+		return cache.asMap().containsKey(new Key(classEntry, settingsKey));
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	private static int estimateSize(SourceIndex index) {
+		long size = (long) index.getSource().length() * Character.BYTES + (long) Iterables.size(index.referenceTokens()) * BYTES_PER_TOKEN;
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	private static final class Key {
+		private final ClassEntry classEntry;
+		private final String settingsKey;
+
+		Key(ClassEntry classEntry, String settingsKey) {
+			this.classEntry = classEntry;
+			this.settingsKey = settingsKey;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(classEntry, settingsKey);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return classEntry.equals(other.classEntry) && settingsKey.equals(other.settingsKey);
+		}
+	}
+}
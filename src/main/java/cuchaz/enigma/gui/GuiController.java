@@ -11,11 +11,19 @@
 
 package cuchaz.enigma.gui;
 
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.decompiler.languages.java.ast.CompilationUnit;
 import cuchaz.enigma.*;
 import cuchaz.enigma.analysis.*;
+import cuchaz.enigma.analysis.index.EntryIndex;
+import cuchaz.enigma.analysis.index.InheritanceIndex;
+import cuchaz.enigma.analysis.index.JarIndex;
 import cuchaz.enigma.api.service.ObfuscationTestService;
 import cuchaz.enigma.bytecode.translators.SourceFixVisitor;
 import cuchaz.enigma.config.Config;
@@ -31,6 +39,7 @@ import cuchaz.enigma.translation.representation.entry.Entry;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
 import cuchaz.enigma.utils.ReadableToken;
+import cuchaz.enigma.utils.Utils;
 import org.objectweb.asm.Opcodes;
 
 import javax.annotation.Nullable;
@@ -40,8 +49,12 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -49,6 +62,11 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class GuiController {
+	private static final int MAX_PREFETCHED_REFERENCES = 8;
+
+	// prints how well the caches did for each project when it is closed, for tuning their sizes
+	private static final boolean LOG_CACHE_STATS = Utils.getSystemPropertyAsBoolean("enigma.logCacheStats", false);
+
 	private static final ExecutorService DECOMPILER_SERVICE = Executors.newSingleThreadExecutor(
 			new ThreadFactoryBuilder()
 					.setDaemon(true)
@@ -68,6 +86,15 @@ public class GuiController {
 
 	private DecompiledClassSource currentSource;
 
+	private final DecompiledSourceCache sourceCache = new DecompiledSourceCache(
+			Utils.getSystemPropertyAsInt("enigma.sourceCacheMegabytes", 64) * 1024L * 1024L
+	);
+
+	private final SourcePrefetcher prefetcher = new SourcePrefetcher(sourceCache);
+
+	private final Set<Entry<?>> pendingChanges = Sets.newConcurrentHashSet();
+	private volatile EntryRemapper observedMapper;
+
 	public GuiController(Gui gui, EnigmaProfile profile) {
 		this.gui = gui;
 		this.enigma = Enigma.builder()
@@ -89,7 +116,17 @@ public class GuiController {
 
 			CompiledSourceTypeLoader typeLoader = new CompiledSourceTypeLoader(project.getClassCache());
 			typeLoader.addVisitor(visitor -> new SourceFixVisitor(Opcodes.ASM5, visitor, project.getJarIndex()));
-			sourceProvider = new SourceProvider(SourceProvider.createSettings(), typeLoader);
+
+			// prefetching decompiles in the background, so the metadata system is set up like when exporting
+			MetadataSystem metadataSystem = new NoRetryMetadataSystem(typeLoader);
+			metadataSystem.setEagerMethodLoadingEnabled(true);
+
+			SourceProvider sourceProvider = new SourceProvider(SourceProvider.createSettings(), typeLoader, metadataSystem);
+			EntryResolver resolver = project.getMapper().getObfResolver();
+
+			this.sourceProvider = sourceProvider;
+			sourceCache.invalidateAll();
+			prefetcher.open(classEntry -> decompileIndex(sourceProvider, resolver, classEntry), sourceProvider.getSettingsKey());
 
 			gui.onFinishOpenJar(jarPath.getFileName().toString());
 
@@ -98,7 +135,13 @@ public class GuiController {
 	}
 
 	public void closeJar() {
+		if (LOG_CACHE_STATS && project != null) {
+			logCacheStats();
+		}
+
 		this.project = null;
+		this.prefetcher.cancelAll();
+		this.sourceCache.invalidateAll();
 		this.gui.onCloseJar();
 	}
 
@@ -171,9 +214,7 @@ public class GuiController {
 
 		return ProgressDialog.runOffThread(this.gui.getFrame(), progress -> {
 			EnigmaProject.JarExport jar = project.exportRemappedJar(progress);
-			EnigmaProject.SourceExport source = jar.decompile(progress);
-
-			source.write(path, progress);
+			jar.writeSources(path, progress);
 		});
 	}
 
@@ -181,8 +222,7 @@ public class GuiController {
 		if (project == null) return CompletableFuture.completedFuture(null);
 
 		return ProgressDialog.runOffThread(this.gui.getFrame(), progress -> {
-			EnigmaProject.JarExport jar = project.exportRemappedJar(progress);
-			jar.write(path, progress);
+			project.writeRemappedJar(path, progress);
 		});
 	}
 
@@ -360,12 +400,16 @@ public class GuiController {
 	}
 
 	public void refreshCurrentClass() {
-		refreshCurrentClass(null);
+		refreshCurrentClass(null, true);
 	}
 
 	private void refreshCurrentClass(EntryReference<Entry<?>, Entry<?>> reference) {
+		refreshCurrentClass(reference, false);
+	}
+
+	private void refreshCurrentClass(EntryReference<Entry<?>, Entry<?>> reference, boolean remapAll) {
 		if (currentSource != null) {
-			loadClass(currentSource.getEntry(), () -> {
+			loadClass(currentSource.getEntry(), remapAll, () -> {
 				if (reference != null) {
 					showReference(reference);
 				}
@@ -374,20 +418,31 @@ public class GuiController {
 	}
 
 	private void loadClass(ClassEntry classEntry, Runnable callback) {
+		loadClass(classEntry, false, callback);
+	}
+
+	private void loadClass(ClassEntry classEntry, boolean remapAll, Runnable callback) {
 		ClassEntry targetClass = classEntry.getOutermostClass();
 
 		boolean requiresDecompile = currentSource == null || !currentSource.getEntry().equals(targetClass);
-		if (requiresDecompile) {
+		if (requiresDecompile && !sourceCache.contains(targetClass, sourceProvider.getSettingsKey())) {
 			gui.setEditorText("(decompiling...)");
 		}
 
 		DECOMPILER_SERVICE.submit(() -> {
 			try {
 				if (requiresDecompile) {
+					pinClassNeighbourhood(targetClass);
 					currentSource = decompileSource(targetClass);
+					prefetchLikelyClasses(targetClass, currentSource.getObfuscatedIndex());
 				}
 
-				remapSource(project.getMapper().getDeobfuscator());
+				Collection<Entry<?>> changes = takePendingChanges(project.getMapper());
+				if (requiresDecompile || remapAll || changes == null) {
+					remapSource(project.getMapper().getDeobfuscator());
+				} else {
+					remapSource(project.getMapper().getDeobfuscator(), changes);
+				}
 				callback.run();
 			} catch (Throwable t) {
 				System.err.println("An exception was thrown while decompiling class " + classEntry.getFullName());
@@ -397,20 +452,23 @@ public class GuiController {
 	}
 
 	private DecompiledClassSource decompileSource(ClassEntry targetClass) {
-		try {
-			CompilationUnit sourceTree = sourceProvider.getSources(targetClass.getFullName());
-			if (sourceTree == null) {
-				gui.setEditorText("Unable to find class: " + targetClass);
-				return DecompiledClassSource.text(targetClass, "Unable to find class");
-			}
-
-			DropImportAstTransform.INSTANCE.run(sourceTree);
-			DropVarModifiersAstTransform.INSTANCE.run(sourceTree);
+		String settingsKey = sourceProvider.getSettingsKey();
+		SourceIndex cachedIndex = sourceCache.get(targetClass, settingsKey);
+		if (cachedIndex != null) {
+			return new DecompiledClassSource(targetClass, cachedIndex);
+		}
 
-			String sourceString = sourceProvider.writeSourceToString(sourceTree);
+		try {
+			SourceIndex index = prefetcher.beginUserDecompile(targetClass);
+			if (index == null) {
+				index = decompileIndex(sourceProvider, project.getMapper().getObfResolver(), targetClass);
+				if (index == null) {
+					gui.setEditorText("Unable to find class: " + targetClass);
+					return DecompiledClassSource.text(targetClass, "Unable to find class");
+				}
 
-			SourceIndex index = SourceIndex.buildIndex(sourceString, sourceTree, true);
-			index.resolveReferences(project.getMapper().getObfResolver());
+				sourceCache.put(targetClass, settingsKey, index);
+			}
 
 			return new DecompiledClassSource(targetClass, index);
 		} catch (Throwable t) {
@@ -418,7 +476,83 @@ public class GuiController {
 			t.printStackTrace(new PrintWriter(traceWriter));
 
 			return DecompiledClassSource.text(targetClass, traceWriter.toString());
+		} finally {
+			prefetcher.endUserDecompile();
+		}
+	}
+
+	@Nullable
+	private static SourceIndex decompileIndex(SourceProvider sourceProvider, EntryResolver resolver, ClassEntry targetClass) {
+		CompilationUnit sourceTree = sourceProvider.getSources(targetClass.getFullName());
+		if (sourceTree == null) {
+			return null;
+		}
+
+		DropImportAstTransform.INSTANCE.run(sourceTree);
+		DropVarModifiersAstTransform.INSTANCE.run(sourceTree);
+
+		String sourceString = sourceProvider.writeSourceToString(sourceTree);
+
+		SourceIndex index = SourceIndex.buildIndex(sourceString, sourceTree, true);
+		index.resolveReferences(resolver);
+
+		return index;
+	}
+
+	private void pinClassNeighbourhood(ClassEntry classEntry) {
+		InheritanceIndex inheritanceIndex = project.getJarIndex().getInheritanceIndex();
+
+		Set<String> pinned = new HashSet<>();
+		pinned.add(classEntry.getFullName());
+		for (ClassEntry parent : inheritanceIndex.getParents(classEntry)) {
+			pinned.add(parent.getFullName());
+		}
+		for (ClassEntry child : inheritanceIndex.getChildren(classEntry)) {
+			pinned.add(child.getFullName());
+		}
+
+		project.getClassCache().setPinned(pinned);
+	}
+
+	private void prefetchLikelyClasses(ClassEntry classEntry, SourceIndex index) {
+		JarIndex jarIndex = project.getJarIndex();
+		EntryIndex entryIndex = jarIndex.getEntryIndex();
+		InheritanceIndex inheritanceIndex = jarIndex.getInheritanceIndex();
+
+		Set<ClassEntry> candidates = new LinkedHashSet<>();
+		candidates.addAll(inheritanceIndex.getParents(classEntry));
+		candidates.addAll(inheritanceIndex.getChildren(classEntry));
+
+		// classes referenced from the source, the most used ones first
+		Multiset<ClassEntry> referencedClasses = HashMultiset.create();
+		for (Token token : index.referenceTokens()) {
+			ClassEntry referencedClass = index.getReference(token).entry.getContainingClass();
+			if (referencedClass != null) {
+				referencedClasses.add(referencedClass.getOutermostClass());
+			}
+		}
+		Multisets.copyHighestCountFirst(referencedClasses).elementSet().stream()
+				.limit(MAX_PREFETCHED_REFERENCES)
+				.forEach(candidates::add);
+
+		// the classes around this one in the class tree
+		List<ClassEntry> packageClasses = entryIndex.getClasses().stream()
+				.filter(entry -> !entry.isInnerClass() && Objects.equals(entry.getPackageName(), classEntry.getPackageName()))
+				.sorted(ClassSelector.DEOBF_CLASS_COMPARATOR)
+				.collect(Collectors.toList());
+		int position = packageClasses.indexOf(classEntry);
+		if (position > 0) {
+			candidates.add(packageClasses.get(position - 1));
+		}
+		if (position >= 0 && position < packageClasses.size() - 1) {
+			candidates.add(packageClasses.get(position + 1));
 		}
+
+		prefetcher.prefetch(candidates.stream()
+				.map(ClassEntry::getOutermostClass)
+				.filter(entry -> !entry.equals(classEntry) && entryIndex.hasClass(entry))
+				.distinct()
+				.collect(Collectors.toList()));
 	}
 
 	private void remapSource(Translator translator) {
@@ -432,6 +566,39 @@ public class GuiController {
 		gui.setSource(currentSource);
 	}
 
+	private void remapSource(Translator translator, Collection<Entry<?>> changes) {
+		if (currentSource == null) {
+			return;
+		}
+
+		if (currentSource.remapSource(project, translator, changes)) {
+			gui.setEditorTheme(Config.getInstance().lookAndFeel);
+			gui.setSource(currentSource);
+		}
+	}
+
+	/**
+	 * Collects the entries whose mappings changed since the last call, or returns null if the mappings were replaced
+	 * entirely and everything has to be remapped.
+	 */
+	@Nullable
+	private synchronized Collection<Entry<?>> takePendingChanges(EntryRemapper mapper) {
+		if (mapper != observedMapper) {
+			observedMapper = mapper;
+			pendingChanges.clear();
+			mapper.getObfToDeobf().addChangeListener(entry -> {
+				if (observedMapper == mapper) {
+					pendingChanges.add(entry);
+				}
+			});
+			return null;
+		}
+
+		List<Entry<?>> changes = Lists.newArrayList(pendingChanges);
+		pendingChanges.removeAll(changes);
+		return changes;
+	}
+
 	public void modifierChange(ItemEvent event) {
 		if (event.getStateChange() == ItemEvent.SELECTED) {
 			EntryRemapper mapper = project.getMapper();
@@ -445,10 +612,17 @@ public class GuiController {
 				mapper.mapFromObf(entry, new EntryMapping(entry.getName(), modifier));
 			}
 
-			refreshCurrentClass();
+			refreshCurrentClass(null);
 		}
 	}
 
+	private void logCacheStats() {
+		System.out.println("Decompiled source cache: " + sourceCache.size() + " sources, " + sourceCache.getStats());
+
+		ClassCache classCache = project.getClassCache();
+		System.out.println("Class node cache: " + classCache.getNodeCacheSize() + " nodes, " + classCache.getPinned().size() + " pinned, " + classCache.getNodeCacheStats());
+	}
+
 	public ClassInheritanceTreeNode getClassInheritance(ClassEntry entry) {
 		Translator translator = project.getMapper().getDeobfuscator();
 		ClassInheritanceTreeNode rootNode = indexTreeBuilder.buildClassInheritance(translator, entry);
@@ -0,0 +1,195 @@
+package cuchaz.enigma.gui;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import cuchaz.enigma.analysis.SourceIndex;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speculatively decompiles classes the user is likely to open next on low priority background threads, storing the
+ * results in a {@link DecompiledSourceCache}.
+ * <p>
+ * User initiated decompiles always take precedence: no prefetch starts while one is in progress, a queued prefetch of
+ * the requested class is handed over to the user and an already running one is awaited instead of being repeated.
+ * Prefetches that are already running when a user decompile begins are not interrupted, but at most one fewer than
+ * the number of cores run at once, so a core is always left for the user.
+ */
+public class SourcePrefetcher {
+	private final ThreadPoolExecutor executor;
+
+	private final DecompiledSourceCache cache;
+
+	private final int maxPrefetches;
+	// guarded by this
+	private int userDecompiles;
+
+	private final Map<ClassEntry, Future<?>> queued = new ConcurrentHashMap<>();
+	private final Map<ClassEntry, CompletableFuture<SourceIndex>> running = new ConcurrentHashMap<>();
+
+	private volatile Session session;
+
+	public SourcePrefetcher(DecompiledSourceCache cache) {
+		this(cache, Runtime.getRuntime().availableProcessors() - 1);
+	}
+
+	/**
+	 * @param maxPrefetches how many prefetches may run at once; prefetching is disabled if this is 0
+	 */
+	SourcePrefetcher(DecompiledSourceCache cache, int maxPrefetches) {
+		this.cache = cache;
+		this.maxPrefetches = maxPrefetches;
+
+		int threads = Math.max(1, maxPrefetches);
+		this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				new ThreadFactoryBuilder()
+						.setDaemon(true)
+						.setPriority(Thread.MIN_PRIORITY)
+						.setNameFormat("prefetch-thread-%d")
+						.build()
+		);
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Starts prefetching for a newly opened project, cancelling everything scheduled for the previous one.
+	 */
+	public void open(Decompiler decompiler, String settingsKey) {
+		cancelAll();
+		session = new Session(decompiler, settingsKey);
+	}
+
+	/**
+	 * Replaces any prefetches that have not started yet with the given classes, in order of likelihood.
+	 */
+	public void prefetch(Collection<ClassEntry> classes) {
+		Session session = this.session;
+		if (session == null || maxPrefetches <= 0) {
+			return;
+		}
+
+		synchronized (this) {
+			cancelQueued();
+
+			for (ClassEntry classEntry : classes) {
+				if (cache.contains(classEntry, session.settingsKey) || running.containsKey(classEntry) || queued.containsKey(classEntry)) {
+					continue;
+				}
+
+				// registered before it is submitted, so the task always finds itself in the queue once it starts
+				FutureTask<?> task = new FutureTask<>(() -> runPrefetch(session, classEntry), null);
+				queued.put(classEntry, task);
+				executor.execute(task);
+			}
+		}
+	}
+
+	public void cancelAll() {
+		session = null;
+		cancelQueued();
+
+		// decompiles that are already running can't be stopped, but their results are dropped
+		running.clear();
+	}
+
+	private synchronized void cancelQueued() {
+		for (Future<?> future : queued.values()) {
+			future.cancel(false);
+		}
+		queued.clear();
+		executor.purge();
+	}
+
+	/**
+	 * Marks the start of a user initiated decompile of the given class, and returns its source if a prefetch of it
+	 * is already running. {@link #endUserDecompile()} must be called once the user decompile is done.
+	 */
+	@Nullable
+	public SourceIndex beginUserDecompile(ClassEntry classEntry) throws InterruptedException {
+		CompletableFuture<SourceIndex> runningPrefetch;
+		synchronized (this) {
+			userDecompiles++;
+
+			Future<?> queuedPrefetch = queued.remove(classEntry);
+			if (queuedPrefetch != null) {
+				queuedPrefetch.cancel(false);
+			}
+			runningPrefetch = running.get(classEntry);
+		}
+
+		if (runningPrefetch != null) {
+			try {
+				return runningPrefetch.get();
+			} catch (ExecutionException e) {
+				// decompile it again on the user's behalf, so the failure gets reported
+				return null;
+			}
+		}
+
+		return null;
+	}
+
+	public synchronized void endUserDecompile() {
+		userDecompiles--;
+		notifyAll();
+	}
+
+	private void runPrefetch(Session session, ClassEntry classEntry) {
+		CompletableFuture<SourceIndex> result = new CompletableFuture<>();
+		synchronized (this) {
+			// checked under the same lock that registers the prefetch as running, so no user decompile can begin
+			// between the check and the start of the prefetch
+			try {
+				while (userDecompiles > 0) {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (queued.remove(classEntry) == null || this.session != session) {
+				// taken over by the user or cancelled while we were waiting
+				return;
+			}
+			running.put(classEntry, result);
+		}
+
+		try {
+			SourceIndex index = session.decompiler.decompile(classEntry);
+			if (index != null && this.session == session) {
+				cache.put(classEntry, session.settingsKey, index);
+			}
+			result.complete(index);
+		} catch (Throwable t) {
+			result.completeExceptionally(t);
+		} finally {
+			running.remove(classEntry, result);
+		}
+	}
+
+	public interface Decompiler {
+		@Nullable
+		SourceIndex decompile(ClassEntry classEntry) throws Exception;
+	}
+
+	private static final class Session {
+		private final Decompiler decompiler;
+		private final String settingsKey;
+
+		Session(Decompiler decompiler, String settingsKey) {
+			this.decompiler = decompiler;
+			this.settingsKey = settingsKey;
+		}
+	}
+}
@@ -15,24 +15,37 @@ public class SourceRemapper {
 	}
 
 	public Result remap(Remapper remapper) {
-		StringBuffer remappedSource = new StringBuffer(source);
+		// the tokens are ordered, so the remapped source can be appended piece by piece instead of
+		// shifting the tail of a buffer on every rename
+		StringBuilder remappedSource = new StringBuilder(source.length());
 		Map<Token, Token> remappedTokens = new HashMap<>();
 
 		int accumulatedOffset = 0;
+		int copiedUntil = 0;
 		for (Token token : tokens) {
 			Token movedToken = token.move(accumulatedOffset);
 
+			remappedSource.append(source, copiedUntil, token.start);
+
 			String remappedName = remapper.remap(token, movedToken);
 			if (remappedName != null) {
 				accumulatedOffset += movedToken.getRenameOffset(remappedName);
-				movedToken.rename(remappedSource, remappedName);
+				movedToken.text = remappedName;
+				movedToken.end = movedToken.start + remappedName.length();
+				remappedSource.append(remappedName);
+			} else {
+				remappedSource.append(source, token.start, token.end);
 			}
 
+			copiedUntil = token.end;
+
 			if (!token.equals(movedToken)) {
 				remappedTokens.put(token, movedToken);
 			}
 		}
 
+		remappedSource.append(source, copiedUntil, source.length());
+
 		return new Result(remappedSource.toString(), remappedTokens);
 	}
 
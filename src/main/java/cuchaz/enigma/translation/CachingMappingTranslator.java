@@ -0,0 +1,227 @@
+package cuchaz.enigma.translation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
+import cuchaz.enigma.translation.mapping.EntryMap;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.EntryResolver;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.Entry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A translator equivalent to {@link MappingTranslator} that remembers the translation of every plain class, field and method entry.
+ * <p>
+ * While an entry is translated, every mapping lookup it causes (including the ones made for its parents and
+ * descriptor) is recorded as a dependency of the cached result. {@link #invalidate(Entry)} then only drops the
+ * translations that actually looked at the changed entry, so a single rename keeps the rest of the cache warm.
+ */
+public class CachingMappingTranslator implements Translator {
+	private static final int MAX_CACHE_SIZE = 100_000;
+
+	private final EntryMap<EntryMapping> mappings;
+	private final EntryResolver resolver;
+
+	private final EntryMap<EntryMapping> recordingMappings = new RecordingEntryMap();
+
+	private final Cache<CacheKey, CachedTranslation> cache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHE_SIZE)
+			.removalListener(this::onRemoval)
+			.recordStats()
+			.build();
+
+	private final SetMultimap<Entry<?>, CacheKey> dependents = Multimaps.synchronizedSetMultimap(HashMultimap.create());
+
+	private final ThreadLocal<Deque<Set<Entry<?>>>> dependencyFrames = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private volatile long generation;
+
+	public CachingMappingTranslator(EntryMap<EntryMapping> mappings, EntryResolver resolver) {
+		this.mappings = mappings;
+		this.resolver = resolver;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Translatable> T translate(T translatable) {
+		if (translatable == null) {
+			return null;
+		}
+
+		if (!isCacheable(translatable)) {
+			return (T) translatable.translate(this, resolver, recordingMappings);
+		}
+
+		CacheKey key = new CacheKey((Entry<?>) translatable);
+		CachedTranslation cached = cache.getIfPresent(key);
+		if (cached == null) {
+			cached = computeTranslation(key);
+		}
+
+		Set<Entry<?>> frame = dependencyFrames.get().peek();
+		if (frame != null) {
+			frame.addAll(cached.dependencies);
+		}
+
+		return (T) cached.result;
+	}
+
+	private CachedTranslation computeTranslation(CacheKey key) {
+		long generation = this.generation;
+
+		Deque<Set<Entry<?>>> frames = dependencyFrames.get();
+		frames.push(new HashSet<>());
+
+		Translatable result;
+		Set<Entry<?>> dependencies;
+		try {
+			result = key.entry.translate(this, resolver, recordingMappings);
+		} finally {
+			dependencies = frames.pop();
+		}
+
+		CachedTranslation translation = new CachedTranslation(result, ImmutableSet.copyOf(dependencies));
+
+		synchronized (dependents) {
+			// a mapping changed while we were translating, so this result may already be stale
+			if (generation == this.generation) {
+				for (Entry<?> dependency : translation.dependencies) {
+					dependents.put(dependency, key);
+				}
+				cache.put(key, translation);
+			}
+		}
+
+		return translation;
+	}
+
+	private static boolean isCacheable(Translatable translatable) {
+		// definition entries and local variables compare equal while differing in access, signature or name,
+		// so only the plain entries are safe to key by equality
+		Class<?> type = translatable.getClass();
+		return type == ClassEntry.class || type == FieldEntry.class || type == MethodEntry.class;
+	}
+
+	/**
+	 * Drops every cached translation that depended on the mapping of the given entry.
+	 */
+	public void invalidate(Entry<?> entry) {
+		synchronized (dependents) {
+			generation++;
+			Set<CacheKey> keys = dependents.removeAll(entry);
+			cache.invalidateAll(keys);
+		}
+	}
+
+	public void invalidateAll() {
+		synchronized (dependents) {
+			generation++;
+			cache.invalidateAll();
+			dependents.clear();
+		}
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	public CacheStats getCacheStats() {
+		return cache.stats();
+	}
+
+	private void onRemoval(RemovalNotification<CacheKey, CachedTranslation> notification) {
+		// a replaced value has already had its dependencies registered again under the same key
+		CachedTranslation translation = notification.getValue();
+		if (translation != null && notification.getCause() != RemovalCause.REPLACED) {
+			for (Entry<?> dependency : translation.dependencies) {
+				dependents.remove(dependency, notification.getKey());
+			}
+		}
+	}
+
+	private void recordDependency(Entry<?> entry) {
+		Set<Entry<?>> frame = dependencyFrames.get().peek();
+		if (frame != null) {
+			frame.add(entry);
+		}
+	}
+
+	private class RecordingEntryMap implements EntryMap<EntryMapping> {
+		@Override
+		public void insert(Entry<?> entry, EntryMapping value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Nullable
+		@Override
+		public EntryMapping remove(Entry<?> entry) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Nullable
+		@Override
+		public EntryMapping get(Entry<?> entry) {
+			recordDependency(entry);
+			return mappings.get(entry);
+		}
+
+		@Override
+		public Stream<Entry<?>> getAllEntries() {
+			return mappings.getAllEntries();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return mappings.isEmpty();
+		}
+	}
+
+	private static final class CacheKey {
+		private final Entry<?> entry;
+
+		CacheKey(Entry<?> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public int hashCode() {
+			return entry.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey other = (CacheKey) obj;
+			return entry.getClass() == other.entry.getClass() && entry.equals(other.entry);
+		}
+	}
+
+	private static final class CachedTranslation {
+		private final Translatable result;
+		private final Collection<Entry<?>> dependencies;
+
+		CachedTranslation(Translatable result, Collection<Entry<?>> dependencies) {
+			this.result = result;
+			this.dependencies = dependencies;
+		}
+	}
+}
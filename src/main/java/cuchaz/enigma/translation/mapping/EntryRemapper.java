@@ -1,7 +1,8 @@
 package cuchaz.enigma.translation.mapping;
 
+import com.google.common.cache.CacheStats;
 import cuchaz.enigma.analysis.index.JarIndex;
-import cuchaz.enigma.translation.MappingTranslator;
+import cuchaz.enigma.translation.CachingMappingTranslator;
 import cuchaz.enigma.translation.Translatable;
 import cuchaz.enigma.translation.Translator;
 import cuchaz.enigma.translation.mapping.tree.DeltaTrackingTree;
@@ -17,7 +18,7 @@ public class EntryRemapper {
 	private final DeltaTrackingTree<EntryMapping> obfToDeobf;
 
 	private final EntryResolver obfResolver;
-	private final Translator deobfuscator;
+	private final CachingMappingTranslator deobfuscator;
 
 	private final MappingValidator validator;
 
@@ -26,7 +27,8 @@ public class EntryRemapper {
 
 		this.obfResolver = jarIndex.getEntryResolver();
 
-		this.deobfuscator = new MappingTranslator(obfToDeobf, obfResolver);
+		this.deobfuscator = new CachingMappingTranslator(obfToDeobf, obfResolver);
+		this.obfToDeobf.addChangeListener(deobfuscator::invalidate);
 
 		this.validator = new MappingValidator(obfToDeobf, deobfuscator, jarIndex);
 	}
@@ -74,6 +76,10 @@ public class EntryRemapper {
 		return deobfuscator;
 	}
 
+	public CacheStats getTranslationCacheStats() {
+		return deobfuscator.getCacheStats();
+	}
+
 	public Stream<Entry<?>> getObfEntries() {
 		return obfToDeobf.getAllEntries();
 	}
@@ -1,5 +1,8 @@
 package cuchaz.enigma.translation.mapping;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Sets;
 import cuchaz.enigma.analysis.IndexTreeBuilder;
 import cuchaz.enigma.analysis.MethodImplementationsTreeNode;
@@ -12,6 +15,7 @@ import cuchaz.enigma.translation.VoidTranslator;
 import cuchaz.enigma.translation.representation.AccessFlags;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
 import cuchaz.enigma.translation.representation.entry.Entry;
+import cuchaz.enigma.translation.representation.entry.LocalVariableEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
 
 import javax.annotation.Nullable;
@@ -19,12 +23,24 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class IndexEntryResolver implements EntryResolver {
+	private static final int MAX_CACHE_SIZE = 100_000;
+
 	private final EntryIndex entryIndex;
 	private final InheritanceIndex inheritanceIndex;
 	private final BridgeMethodIndex bridgeMethodIndex;
 
 	private final IndexTreeBuilder treeBuilder;
 
+	private final Cache<ResolutionKey, Collection<? extends Entry<?>>> resolutionCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHE_SIZE)
+			.recordStats()
+			.build();
+
+	private final Cache<MethodEntry, Set<MethodEntry>> equivalentMethodCache = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHE_SIZE)
+			.recordStats()
+			.build();
+
 	public IndexEntryResolver(JarIndex index) {
 		this.entryIndex = index.getEntryIndex();
 		this.inheritanceIndex = index.getInheritanceIndex();
@@ -33,6 +49,23 @@ public class IndexEntryResolver implements EntryResolver {
 		this.treeBuilder = new IndexTreeBuilder(index);
 	}
 
+	/**
+	 * Clears all memoized resolutions. This must be called whenever the underlying index changes, which only happens
+	 * while it is being processed.
+	 */
+	public void invalidateCache() {
+		resolutionCache.invalidateAll();
+		equivalentMethodCache.invalidateAll();
+	}
+
+	public CacheStats getResolutionCacheStats() {
+		return resolutionCache.stats();
+	}
+
+	public CacheStats getEquivalentMethodCacheStats() {
+		return equivalentMethodCache.stats();
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <E extends Entry<?>> Collection<E> resolveEntry(E entry, ResolutionStrategy strategy) {
@@ -40,6 +73,27 @@ public class IndexEntryResolver implements EntryResolver {
 			return Collections.emptySet();
 		}
 
+		if (entry instanceof LocalVariableEntry) {
+			// local variables are equal regardless of their name, so only their method is looked up in the cache
+			LocalVariableEntry variable = (LocalVariableEntry) entry;
+			MethodEntry method = variable.getParent();
+			return resolveEntry(method, strategy).stream()
+					.map(resolvedMethod -> (E) variable.replaceAncestor(method, resolvedMethod))
+					.collect(Collectors.toList());
+		}
+
+		ResolutionKey key = new ResolutionKey(entry, strategy);
+		Collection<E> resolved = (Collection<E>) resolutionCache.getIfPresent(key);
+		if (resolved == null) {
+			resolved = Collections.unmodifiableCollection(computeResolvedEntry(entry, strategy));
+			resolutionCache.put(key, resolved);
+		}
+
+		return resolved;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <E extends Entry<?>> Collection<E> computeResolvedEntry(E entry, ResolutionStrategy strategy) {
 		Entry<ClassEntry> classChild = getClassChild(entry);
 		if (classChild != null && !(classChild instanceof ClassEntry)) {
 			AccessFlags access = entryIndex.getEntryAccess(classChild);
@@ -165,8 +219,15 @@ public class IndexEntryResolver implements EntryResolver {
 			return Collections.singleton(methodEntry);
 		}
 
-		Set<MethodEntry> methodEntries = Sets.newHashSet();
-		resolveEquivalentMethods(methodEntries, treeBuilder.buildMethodInheritance(VoidTranslator.INSTANCE, methodEntry));
+		Set<MethodEntry> methodEntries = equivalentMethodCache.getIfPresent(methodEntry);
+		if (methodEntries == null) {
+			methodEntries = Sets.newHashSet();
+			resolveEquivalentMethods(methodEntries, treeBuilder.buildMethodInheritance(VoidTranslator.INSTANCE, methodEntry));
+
+			methodEntries = Collections.unmodifiableSet(methodEntries);
+			equivalentMethodCache.put(methodEntry, methodEntries);
+		}
+
 		return methodEntries;
 	}
 
@@ -224,4 +285,30 @@ public class IndexEntryResolver implements EntryResolver {
 	private boolean canInherit(MethodEntry entry, AccessFlags access) {
 		return !entry.isConstructor() && !access.isPrivate() && !access.isStatic() && !access.isFinal();
 	}
+
+	private static final class ResolutionKey {
+		private final Entry<?> entry;
+		private final ResolutionStrategy strategy;
+
+		ResolutionKey(Entry<?> entry, ResolutionStrategy strategy) {
+			this.entry = entry;
+			this.strategy = strategy;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(entry, strategy);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ResolutionKey)) {
+				return false;
+			}
+
+			// definition entries are equal to their plain counterparts, but resolve to entries of their own type
+			ResolutionKey other = (ResolutionKey) obj;
+			return entry.getClass() == other.entry.getClass() && entry.equals(other.entry) && strategy == other.strategy;
+		}
+	}
 }
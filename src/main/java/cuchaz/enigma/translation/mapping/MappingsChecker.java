@@ -20,11 +20,15 @@ import cuchaz.enigma.translation.representation.entry.Entry;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * Finds mappings whose entries no longer exist in the jar, or no longer resolve to themselves. The mapping tree is
+ * checked one root class subtree at a time, on multiple threads; the mappings and the index are only read while
+ * checking, and the broken mappings are removed afterwards.
+ */
 public class MappingsChecker {
 	private final JarIndex index;
 	private final EntryTree<EntryMapping> mappings;
@@ -35,18 +39,65 @@ public class MappingsChecker {
 	}
 
 	public Dropped dropBrokenMappings(ProgressListener progress) {
-		Dropped dropped = new Dropped();
+		List<EntryTreeNode<EntryMapping>> roots = mappings.getRootNodes().collect(Collectors.toList());
+		return dropBrokenMappings(roots, progress);
+	}
+
+	/**
+	 * Only checks the mappings that were changed by the given delta. The jar is assumed to be unchanged since the rest
+	 * of the mappings were last checked.
+	 */
+	public Dropped dropBrokenMappings(MappingDelta<?> delta, ProgressListener progress) {
+		List<EntryTreeNode<EntryMapping>> roots = delta.getChangedRoots()
+				.map(mappings::findNode)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+
+		return dropBrokenMappings(roots, progress);
+	}
+
+	/**
+	 * Only checks the mappings of classes whose bytecode changed, such as after updating to a new version of the jar.
+	 * Members of subclasses can resolve to members of their ancestors, so the mappings of every descendant of a changed
+	 * class are checked as well.
+	 */
+	public Dropped dropBrokenMappings(Collection<ClassEntry> changedClasses, ProgressListener progress) {
+		Set<ClassEntry> classes = new LinkedHashSet<>();
+		for (ClassEntry classEntry : changedClasses) {
+			classes.add(classEntry);
+			classes.addAll(index.getInheritanceIndex().getDescendants(classEntry));
+		}
 
-		Collection<Entry<?>> obfEntries = mappings.getAllEntries()
-				.filter(e -> e instanceof ClassEntry || e instanceof MethodEntry || e instanceof FieldEntry)
+		List<EntryTreeNode<EntryMapping>> roots = classes.stream()
+				.map(mappings::findNode)
+				.filter(Objects::nonNull)
 				.collect(Collectors.toList());
 
-		progress.init(obfEntries.size(), "Checking for dropped mappings");
+		return dropBrokenMappings(roots, progress);
+	}
+
+	private Dropped dropBrokenMappings(List<EntryTreeNode<EntryMapping>> roots, ProgressListener progress) {
+		progress.init(roots.size(), "Checking for dropped mappings");
+
+		AtomicInteger steps = new AtomicInteger();
+		List<List<Entry<?>>> brokenEntries = roots.parallelStream()
+				.map(root -> {
+					List<Entry<?>> broken = findBrokenEntries(root);
+					synchronized (progress) {
+						progress.step(steps.incrementAndGet(), root.getEntry().toString());
+					}
+					return broken;
+				})
+				.collect(Collectors.toList());
 
-		int steps = 0;
-		for (Entry<?> entry : obfEntries) {
-			progress.step(steps++, entry.toString());
-			tryDropEntry(dropped, entry);
+		Dropped dropped = new Dropped();
+		for (List<Entry<?>> broken : brokenEntries) {
+			for (Entry<?> entry : broken) {
+				EntryMapping mapping = mappings.get(entry);
+				if (mapping != null) {
+					dropped.drop(entry, mapping);
+				}
+			}
 		}
 
 		dropped.apply(mappings);
@@ -54,13 +105,19 @@ public class MappingsChecker {
 		return dropped;
 	}
 
-	private void tryDropEntry(Dropped dropped, Entry<?> entry) {
-		if (shouldDropEntry(entry)) {
-			EntryMapping mapping = mappings.get(entry);
-			if (mapping != null) {
-				dropped.drop(entry, mapping);
+	private List<Entry<?>> findBrokenEntries(EntryTreeNode<EntryMapping> root) {
+		List<Entry<?>> broken = new ArrayList<>();
+		for (EntryTreeNode<EntryMapping> node : root.getNodesRecursively()) {
+			Entry<?> entry = node.getEntry();
+			if (!(entry instanceof ClassEntry || entry instanceof MethodEntry || entry instanceof FieldEntry)) {
+				continue;
+			}
+
+			if (node.hasValue() && shouldDropEntry(entry)) {
+				broken.add(entry);
 			}
 		}
+		return broken;
 	}
 
 	private boolean shouldDropEntry(Entry<?> entry) {
@@ -0,0 +1,33 @@
+package cuchaz.enigma.translation.mapping.serde;
+
+/**
+ * Layout of the binary mapping format shared by {@link BinaryMappingsReader} and {@link BinaryMappingsWriter}.
+ * <p>
+ * A file starts with {@link #MAGIC} and {@link #VERSION}, followed by the string table: the number of strings and
+ * then every string as its UTF-8 length and bytes. The entry tree follows as the number of root nodes and then every
+ * node in pre-order. A node is a flags byte, the fields of its entry, the string index of its target name if it has a
+ * mapping, and then the number of its children and the children themselves. All counts, lengths, indices and string
+ * indices are unsigned LEB128 varints.
+ * <p>
+ * The entry fields are the name for a class, the name and descriptor for a field or method, and the index and name
+ * for a local variable. Names of nested classes are their inner names, names of root classes their full names.
+ */
+final class BinaryMappings {
+	static final int MAGIC = 0x454E4D42; // "ENMB"
+	static final int VERSION = 1;
+
+	static final int KIND_MASK = 0x03;
+	static final int KIND_CLASS = 0;
+	static final int KIND_FIELD = 1;
+	static final int KIND_METHOD = 2;
+	static final int KIND_LOCAL_VARIABLE = 3;
+
+	static final int FLAG_MAPPED = 0x04;
+	static final int FLAG_ARGUMENT = 0x08;
+
+	static final int ACCESS_SHIFT = 4;
+	static final int ACCESS_MASK = 0x03;
+
+	private BinaryMappings() {
+	}
+}
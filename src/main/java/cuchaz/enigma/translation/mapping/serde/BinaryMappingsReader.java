@@ -0,0 +1,224 @@
+package cuchaz.enigma.translation.mapping.serde;
+
+import cuchaz.enigma.ProgressListener;
+import cuchaz.enigma.throwables.MappingParseException;
+import cuchaz.enigma.translation.mapping.AccessModifier;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingSaveParameters;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.*;
+import cuchaz.enigma.utils.Utils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static cuchaz.enigma.translation.mapping.serde.BinaryMappings.*;
+
+public enum BinaryMappingsReader implements MappingsReader {
+	INSTANCE;
+
+	/**
+	 * Whether files are memory-mapped instead of read into memory. Off by default, as a mapped file stays open until
+	 * the mapping is garbage collected, which on some platforms keeps it from being overwritten by the next save.
+	 */
+	private static final boolean MAP_FILES = Utils.getSystemPropertyAsBoolean("enigma.mapBinaryMappings", false);
+
+	private static final AccessModifier[] ACCESS_MODIFIERS = AccessModifier.values();
+
+	// inner classes nest arbitrarily, but never this deep; anything deeper is a corrupt file
+	private static final int MAX_DEPTH = 256;
+
+	@Override
+	public EntryTree<EntryMapping> read(Path path, ProgressListener progress, MappingSaveParameters saveParameters) throws IOException, MappingParseException {
+		progress.init(1, "Loading mapping file");
+
+		ByteBuffer buffer = MAP_FILES ? map(path) : ByteBuffer.wrap(Files.readAllBytes(path));
+
+		EntryTree<EntryMapping> mappings;
+		try {
+			mappings = new Decoder(buffer).decode();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated binary mappings file " + path, e);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Malformed binary mappings file " + path + ": " + e.getMessage(), e);
+		}
+
+		progress.step(1, "Done!");
+
+		return mappings;
+	}
+
+	private static ByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	private static final class Decoder {
+		private final ByteBuffer buffer;
+		private final HashEntryTree<EntryMapping> mappings = new HashEntryTree<>();
+
+		private String[] strings;
+		// descriptors parsed from each string, filled in as they are used
+		private TypeDescriptor[] typeDescriptors;
+		private MethodDescriptor[] methodDescriptors;
+
+		Decoder(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		EntryTree<EntryMapping> decode() {
+			if (buffer.getInt() != MAGIC) {
+				throw new IllegalArgumentException("not a binary mappings file");
+			}
+
+			int version = readVarInt();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("unsupported version " + version);
+			}
+
+			readStrings();
+
+			int rootCount = readVarInt();
+			for (int i = 0; i < rootCount; i++) {
+				readNode(null, 0);
+			}
+
+			return mappings;
+		}
+
+		private void readStrings() {
+			int count = readVarInt();
+			strings = new String[count];
+			typeDescriptors = new TypeDescriptor[count];
+			methodDescriptors = new MethodDescriptor[count];
+
+			byte[] bytes = new byte[64];
+			for (int i = 0; i < count; i++) {
+				int length = readVarInt();
+				if (buffer.hasArray()) {
+					checkRemaining(length);
+					strings[i] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+					buffer.position(buffer.position() + length);
+				} else {
+					if (bytes.length < length) {
+						bytes = new byte[Math.max(length, bytes.length * 2)];
+					}
+					buffer.get(bytes, 0, length);
+					strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				}
+			}
+		}
+
+		private void readNode(@Nullable Entry<?> parent, int depth) {
+			if (depth >= MAX_DEPTH) {
+				throw new IllegalArgumentException("entries nested deeper than " + MAX_DEPTH + " levels");
+			}
+
+			int flags = buffer.get() & 0xFF;
+
+			Entry<?> entry;
+			switch (flags & KIND_MASK) {
+				case KIND_CLASS:
+					entry = readClass(parent);
+					break;
+				case KIND_FIELD:
+					entry = EntryInterner.intern(new FieldEntry(asParent(parent, ClassEntry.class), readString(), readTypeDescriptor()));
+					break;
+				case KIND_METHOD:
+					entry = EntryInterner.intern(new MethodEntry(asParent(parent, ClassEntry.class), readString(), readMethodDescriptor()));
+					break;
+				default:
+					int index = readVarInt();
+					entry = new LocalVariableEntry(asParent(parent, MethodEntry.class), index, readString(), (flags & FLAG_ARGUMENT) != 0);
+					break;
+			}
+
+			if ((flags & FLAG_MAPPED) != 0) {
+				AccessModifier access = ACCESS_MODIFIERS[(flags >>> ACCESS_SHIFT) & ACCESS_MASK];
+				mappings.insert(entry, new EntryMapping(readString(), access));
+			}
+
+			int childCount = readVarInt();
+			for (int i = 0; i < childCount; i++) {
+				readNode(entry, depth + 1);
+			}
+		}
+
+		private ClassEntry readClass(@Nullable Entry<?> parent) {
+			String name = readString();
+			if (parent == null) {
+				return EntryInterner.classEntry(name);
+			}
+			return EntryInterner.intern(new ClassEntry(asParent(parent, ClassEntry.class), name));
+		}
+
+		private static <P extends Entry<?>> P asParent(@Nullable Entry<?> parent, Class<P> type) {
+			if (!type.isInstance(parent)) {
+				throw new IllegalArgumentException("entry placed under " + parent);
+			}
+			return type.cast(parent);
+		}
+
+		private String readString() {
+			return strings[readStringIndex()];
+		}
+
+		private TypeDescriptor readTypeDescriptor() {
+			int index = readStringIndex();
+			TypeDescriptor descriptor = typeDescriptors[index];
+			if (descriptor == null) {
+				descriptor = typeDescriptors[index] = EntryInterner.typeDescriptor(strings[index]);
+			}
+			return descriptor;
+		}
+
+		private MethodDescriptor readMethodDescriptor() {
+			int index = readStringIndex();
+			MethodDescriptor descriptor = methodDescriptors[index];
+			if (descriptor == null) {
+				descriptor = methodDescriptors[index] = EntryInterner.methodDescriptor(strings[index]);
+			}
+			return descriptor;
+		}
+
+		private int readStringIndex() {
+			int index = readVarInt();
+			if (index >= strings.length) {
+				throw new IllegalArgumentException("string index " + index + " out of bounds");
+			}
+			return index;
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					if (value < 0) {
+						throw new IllegalArgumentException("varint out of range");
+					}
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("varint too long");
+		}
+
+		private void checkRemaining(int length) {
+			if (buffer.remaining() < length) {
+				throw new BufferUnderflowException();
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package cuchaz.enigma.translation.mapping.serde;
+
+import cuchaz.enigma.ProgressListener;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingDelta;
+import cuchaz.enigma.translation.mapping.MappingSaveParameters;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.EntryTreeNode;
+import cuchaz.enigma.translation.representation.entry.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static cuchaz.enigma.translation.mapping.serde.BinaryMappings.*;
+
+public enum BinaryMappingsWriter implements MappingsWriter {
+	INSTANCE;
+
+	private static final Comparator<EntryTreeNode<EntryMapping>> NODE_ORDER = Comparator.comparing(node -> node.getEntry().toString());
+
+	/**
+	 * Encodes the entry tree first, collecting its strings on the way, and then writes the string table followed by
+	 * the encoded tree. Nodes are sorted, so the same mappings always produce the same file.
+	 */
+	@Override
+	public void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, ProgressListener progress, MappingSaveParameters saveParameters) {
+		List<EntryTreeNode<EntryMapping>> roots = mappings.getRootNodes()
+				.sorted(NODE_ORDER)
+				.collect(Collectors.toList());
+
+		progress.init(roots.size(), "Generating mappings");
+
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream tree = new ByteArrayOutputStream();
+		writeVarInt(tree, roots.size());
+
+		int steps = 0;
+		for (EntryTreeNode<EntryMapping> root : roots) {
+			progress.step(steps++, root.getEntry().getName());
+			writeNode(tree, strings, root);
+		}
+
+		progress.init(1, "Writing mappings");
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			header.write(MAGIC >>> 24);
+			header.write(MAGIC >>> 16);
+			header.write(MAGIC >>> 8);
+			header.write(MAGIC);
+			writeVarInt(header, VERSION);
+			strings.writeTo(header);
+
+			header.writeTo(out);
+			tree.writeTo(out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		progress.step(1, "Done!");
+	}
+
+	private void writeNode(ByteArrayOutputStream out, StringTable strings, EntryTreeNode<EntryMapping> node) {
+		Entry<?> entry = node.getEntry();
+		EntryMapping mapping = node.getValue();
+
+		int flags;
+		if (entry instanceof ClassEntry) {
+			flags = KIND_CLASS;
+		} else if (entry instanceof FieldEntry) {
+			flags = KIND_FIELD;
+		} else if (entry instanceof MethodEntry) {
+			flags = KIND_METHOD;
+		} else if (entry instanceof LocalVariableEntry) {
+			flags = KIND_LOCAL_VARIABLE;
+			if (((LocalVariableEntry) entry).isArgument()) {
+				flags |= FLAG_ARGUMENT;
+			}
+		} else {
+			throw new IllegalArgumentException("Cannot write entry " + entry + " of type " + entry.getClass().getSimpleName());
+		}
+
+		if (mapping != null) {
+			flags |= FLAG_MAPPED | mapping.getAccessModifier().ordinal() << ACCESS_SHIFT;
+		}
+		out.write(flags);
+
+		if (entry instanceof LocalVariableEntry) {
+			writeVarInt(out, ((LocalVariableEntry) entry).getIndex());
+		}
+		writeVarInt(out, strings.indexOf(entry.getName()));
+		if (entry instanceof FieldEntry) {
+			writeVarInt(out, strings.indexOf(((FieldEntry) entry).getDesc().toString()));
+		} else if (entry instanceof MethodEntry) {
+			writeVarInt(out, strings.indexOf(((MethodEntry) entry).getDesc().toString()));
+		}
+
+		if (mapping != null) {
+			writeVarInt(out, strings.indexOf(mapping.getTargetName()));
+		}
+
+		List<EntryTreeNode<EntryMapping>> children = new ArrayList<>(node.getChildNodes());
+		children.sort(NODE_ORDER);
+
+		writeVarInt(out, children.size());
+		for (EntryTreeNode<EntryMapping> child : children) {
+			writeNode(out, strings, child);
+		}
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Numbers strings in the order they are first used.
+	 */
+	private static final class StringTable {
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+
+		int indexOf(String string) {
+			Integer index = indices.get(string);
+			if (index == null) {
+				index = strings.size();
+				indices.put(string, index);
+				strings.add(string);
+			}
+			return index;
+		}
+
+		void writeTo(ByteArrayOutputStream out) {
+			writeVarInt(out, strings.size());
+			for (String string : strings) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				writeVarInt(out, bytes.length);
+				out.write(bytes, 0, bytes.length);
+			}
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package cuchaz.enigma.translation.mapping.serde;
 
-import com.google.common.base.Charsets;
 import cuchaz.enigma.ProgressListener;
 import cuchaz.enigma.throwables.MappingParseException;
 import cuchaz.enigma.translation.mapping.AccessModifier;
@@ -15,12 +14,19 @@ import cuchaz.enigma.translation.representation.entry.*;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public enum EnigmaMappingsReader implements MappingsReader {
@@ -38,84 +44,131 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		}
 	},
 	DIRECTORY {
+		/**
+		 * Parses the mapping files in parallel, each into its own tree, and then merges the trees in file order. Every
+		 * file usually holds a single root class, so merging mostly adopts the parsed root nodes as they are.
+		 */
 		@Override
 		public EntryTree<EntryMapping> read(Path root, ProgressListener progress, MappingSaveParameters saveParameters) throws IOException, MappingParseException {
-			EntryTree<EntryMapping> mappings = new HashEntryTree<>();
-
 			List<Path> files = Files.walk(root)
 					.filter(f -> !Files.isDirectory(f))
 					.filter(f -> f.toString().endsWith(".mapping"))
 					.collect(Collectors.toList());
 
 			progress.init(files.size(), "Loading mapping files");
-			int step = 0;
+			AtomicInteger step = new AtomicInteger();
+
+			List<ParsedFile> parsedFiles = files.parallelStream()
+					.map(file -> {
+						synchronized (progress) {
+							progress.step(step.getAndIncrement(), root.relativize(file).toString());
+						}
+						return parseFile(file);
+					})
+					.collect(Collectors.toList());
 
-			for (Path file : files) {
-				progress.step(step++, root.relativize(file).toString());
-				if (Files.isHidden(file)) {
-					continue;
-				}
-				readFile(file, mappings);
+			HashEntryTree<EntryMapping> mappings = new HashEntryTree<>();
+			for (ParsedFile parsedFile : parsedFiles) {
+				mappings.merge(parsedFile.get());
 			}
 
 			return mappings;
 		}
+
+		private ParsedFile parseFile(Path file) {
+			HashEntryTree<EntryMapping> mappings = new HashEntryTree<>();
+			try {
+				if (!Files.isHidden(file)) {
+					readFile(file, mappings);
+				}
+				return new ParsedFile(mappings, null);
+			} catch (IOException | MappingParseException e) {
+				return new ParsedFile(null, e);
+			}
+		}
 	};
 
-	protected void readFile(Path path, EntryTree<EntryMapping> mappings) throws IOException, MappingParseException {
-		List<String> lines = Files.readAllLines(path, Charsets.UTF_8);
-		Deque<Entry<?>> mappingStack = new ArrayDeque<>();
+	private static final ThreadLocal<CharsetDecoder> DECODERS = ThreadLocal.withInitial(StandardCharsets.UTF_8::newDecoder);
+	private static final ThreadLocal<CharBuffer> BUFFERS = ThreadLocal.withInitial(() -> CharBuffer.allocate(8192));
 
-		for (int lineNumber = 0; lineNumber < lines.size(); lineNumber++) {
-			String line = lines.get(lineNumber);
-			int indentation = countIndentation(line);
+	protected void readFile(Path path, EntryTree<EntryMapping> mappings) throws IOException, MappingParseException {
+		CharBuffer text = decode(path);
+		char[] chars = text.array();
+		int limit = text.limit();
 
-			line = formatLine(line);
-			if (line == null) {
-				continue;
+		Deque<Entry<?>> mappingStack = new ArrayDeque<>();
+		List<String> tokens = new ArrayList<>();
+
+		int lineNumber = 0;
+		int position = 0;
+		while (position < limit) {
+			int lineStart = position;
+			int lineEnd = position;
+			while (lineEnd < limit && chars[lineEnd] != '\n' && chars[lineEnd] != '\r') {
+				lineEnd++;
 			}
 
-			while (indentation < mappingStack.size()) {
-				mappingStack.pop();
+			position = lineEnd;
+			if (position < limit) {
+				position += chars[position] == '\r' && position + 1 < limit && chars[position + 1] == '\n' ? 2 : 1;
 			}
 
-			try {
-				MappingPair<?, EntryMapping> pair = parseLine(mappingStack.peek(), line);
-				mappingStack.push(pair.getEntry());
-				if (pair.getMapping() != null) {
-					mappings.insert(pair.getEntry(), pair.getMapping());
+			int indentation = countIndentation(chars, lineStart, lineEnd);
+			if (tokenize(chars, lineStart, lineEnd, tokens)) {
+				while (indentation < mappingStack.size()) {
+					mappingStack.pop();
+				}
+
+				try {
+					MappingPair<?, EntryMapping> pair = parseLine(mappingStack.peek(), tokens.toArray(new String[0]));
+					mappingStack.push(pair.getEntry());
+					if (pair.getMapping() != null) {
+						mappings.insert(pair.getEntry(), pair.getMapping());
+					}
+				} catch (Throwable t) {
+					t.printStackTrace();
+					throw new MappingParseException(path::toString, lineNumber, t.toString());
 				}
-			} catch (Throwable t) {
-				t.printStackTrace();
-				throw new MappingParseException(path::toString, lineNumber, t.toString());
 			}
+
+			lineNumber++;
 		}
 	}
 
-	@Nullable
-	private String formatLine(String line) {
-		line = stripComment(line);
-		line = line.trim();
+	/**
+	 * Decodes a file into a buffer that is reused by the current thread, so its contents are only valid until the next
+	 * file is decoded on the same thread.
+	 */
+	private static CharBuffer decode(Path path) throws IOException {
+		byte[] bytes = Files.readAllBytes(path);
 
-		if (line.isEmpty()) {
-			return null;
-		}
+		CharsetDecoder decoder = DECODERS.get().reset();
+		int capacity = (int) Math.ceil(bytes.length * (double) decoder.maxCharsPerByte());
 
-		return line;
-	}
+		CharBuffer buffer = BUFFERS.get();
+		if (buffer.capacity() < capacity) {
+			buffer = CharBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+			BUFFERS.set(buffer);
+		}
+		buffer.clear();
 
-	private String stripComment(String line) {
-		int commentPos = line.indexOf('#');
-		if (commentPos >= 0) {
-			return line.substring(0, commentPos);
+		CoderResult result = decoder.decode(ByteBuffer.wrap(bytes), buffer, true);
+		if (!result.isUnderflow()) {
+			result.throwException();
+		}
+		result = decoder.flush(buffer);
+		if (!result.isUnderflow()) {
+			result.throwException();
 		}
-		return line;
+
+		buffer.flip();
+		return buffer;
 	}
 
-	private int countIndentation(String line) {
+	private static int countIndentation(char[] chars, int start, int end) {
 		int indent = 0;
-		for (int i = 0; i < line.length(); i++) {
-			if (line.charAt(i) != '\t') {
+		for (int i = start; i < end; i++) {
+			if (chars[i] != '\t') {
 				break;
 			}
 			indent++;
@@ -123,8 +176,53 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		return indent;
 	}
 
-	private MappingPair<?, EntryMapping> parseLine(@Nullable Entry<?> parent, String line) {
-		String[] tokens = line.trim().split("\\s");
+	/**
+	 * Splits a line into tokens the same way stripping its comment, trimming it and splitting it on every single
+	 * whitespace character would, without creating any intermediate strings. Returns false if the line is blank.
+	 */
+	private static boolean tokenize(char[] chars, int start, int end, List<String> tokens) {
+		tokens.clear();
+
+		for (int i = start; i < end; i++) {
+			if (chars[i] == '#') {
+				end = i;
+				break;
+			}
+		}
+
+		while (start < end && chars[start] <= ' ') {
+			start++;
+		}
+		while (end > start && chars[end - 1] <= ' ') {
+			end--;
+		}
+
+		if (start == end) {
+			return false;
+		}
+
+		int tokenStart = start;
+		for (int i = start; i < end; i++) {
+			if (isWhitespace(chars[i])) {
+				tokens.add(new String(chars, tokenStart, i - tokenStart));
+				tokenStart = i + 1;
+			}
+		}
+		tokens.add(new String(chars, tokenStart, end - tokenStart));
+
+		// trailing empty tokens are dropped, like String.split does
+		while (tokens.get(tokens.size() - 1).isEmpty()) {
+			tokens.remove(tokens.size() - 1);
+		}
+
+		return true;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	private MappingPair<?, EntryMapping> parseLine(@Nullable Entry<?> parent, String[] tokens) {
 		String keyToken = tokens[0].toLowerCase(Locale.ROOT);
 
 		switch (keyToken) {
@@ -145,9 +243,9 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		String obfuscatedName = ClassEntry.getInnerName(tokens[1]);
 		ClassEntry obfuscatedEntry;
 		if (parent instanceof ClassEntry) {
-			obfuscatedEntry = new ClassEntry((ClassEntry) parent, obfuscatedName);
+			obfuscatedEntry = EntryInterner.intern(new ClassEntry((ClassEntry) parent, obfuscatedName));
 		} else {
-			obfuscatedEntry = new ClassEntry(obfuscatedName);
+			obfuscatedEntry = EntryInterner.classEntry(obfuscatedName);
 		}
 
 		String mapping = null;
@@ -188,21 +286,21 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		if (tokens.length == 4) {
 			AccessModifier parsedModifier = parseModifier(tokens[3]);
 			if (parsedModifier != null) {
-				descriptor = new TypeDescriptor(tokens[2]);
+				descriptor = EntryInterner.typeDescriptor(tokens[2]);
 				modifier = parsedModifier;
 			} else {
 				mapping = tokens[2];
-				descriptor = new TypeDescriptor(tokens[3]);
+				descriptor = EntryInterner.typeDescriptor(tokens[3]);
 			}
 		} else if (tokens.length == 5) {
-			descriptor = new TypeDescriptor(tokens[3]);
+			descriptor = EntryInterner.typeDescriptor(tokens[3]);
 			mapping = tokens[2];
 			modifier = parseModifier(tokens[4]);
 		} else {
 			throw new RuntimeException("Invalid method declaration");
 		}
 
-		FieldEntry obfuscatedEntry = new FieldEntry(ownerEntry, obfuscatedName, descriptor);
+		FieldEntry obfuscatedEntry = EntryInterner.intern(new FieldEntry(ownerEntry, obfuscatedName, descriptor));
 		if (mapping != null) {
 			return new MappingPair<>(obfuscatedEntry, new EntryMapping(mapping, modifier));
 		} else {
@@ -223,26 +321,26 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		MethodDescriptor descriptor;
 
 		if (tokens.length == 3) {
-			descriptor = new MethodDescriptor(tokens[2]);
+			descriptor = EntryInterner.methodDescriptor(tokens[2]);
 		} else if (tokens.length == 4) {
 			AccessModifier parsedModifier = parseModifier(tokens[3]);
 			if (parsedModifier != null) {
 				modifier = parsedModifier;
 				mapping = obfuscatedName;
-				descriptor = new MethodDescriptor(tokens[2]);
+				descriptor = EntryInterner.methodDescriptor(tokens[2]);
 			} else {
 				mapping = tokens[2];
-				descriptor = new MethodDescriptor(tokens[3]);
+				descriptor = EntryInterner.methodDescriptor(tokens[3]);
 			}
 		} else if (tokens.length == 5) {
 			mapping = tokens[2];
 			modifier = parseModifier(tokens[4]);
-			descriptor = new MethodDescriptor(tokens[3]);
+			descriptor = EntryInterner.methodDescriptor(tokens[3]);
 		} else {
 			throw new RuntimeException("Invalid method declaration");
 		}
 
-		MethodEntry obfuscatedEntry = new MethodEntry(ownerEntry, obfuscatedName, descriptor);
+		MethodEntry obfuscatedEntry = EntryInterner.intern(new MethodEntry(ownerEntry, obfuscatedName, descriptor));
 		if (mapping != null) {
 			return new MappingPair<>(obfuscatedEntry, new EntryMapping(mapping, modifier));
 		} else {
@@ -269,4 +367,23 @@ public enum EnigmaMappingsReader implements MappingsReader {
 		}
 		return null;
 	}
+
+	private static class ParsedFile {
+		private final HashEntryTree<EntryMapping> mappings;
+		private final Exception error;
+
+		ParsedFile(@Nullable HashEntryTree<EntryMapping> mappings, @Nullable Exception error) {
+			this.mappings = mappings;
+			this.error = error;
+		}
+
+		HashEntryTree<EntryMapping> get() throws IOException, MappingParseException {
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			} else if (error instanceof MappingParseException) {
+				throw (MappingParseException) error;
+			}
+			return mappings;
+		}
+	}
 }
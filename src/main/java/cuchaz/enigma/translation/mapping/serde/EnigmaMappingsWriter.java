@@ -22,12 +22,15 @@ import cuchaz.enigma.utils.LFPrintWriter;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -35,21 +38,23 @@ import java.util.stream.Stream;
 
 public enum EnigmaMappingsWriter implements MappingsWriter {
 	FILE {
+		/**
+		 * Only the classes changed by the delta are rendered again, the rest are taken from the previous save.
+		 */
 		@Override
 		public void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, ProgressListener progress, MappingSaveParameters saveParameters) {
-			Collection<ClassEntry> classes = mappings.getRootNodes()
-					.filter(entry -> entry instanceof ClassEntry)
-					.map(entry -> (ClassEntry) entry)
-					.collect(Collectors.toList());
-
-			progress.init(classes.size(), "Writing classes");
+			try {
+				MappingSegmentCache.write(mappings, delta, path, "enigma", progress, new byte[0], 1, ROOT_ORDER, false, (tree, root) -> {
+					if (!(root.getEntry() instanceof ClassEntry)) {
+						return new byte[][]{new byte[0]};
+					}
 
-			int steps = 0;
-			try (PrintWriter writer = new LFPrintWriter(Files.newBufferedWriter(path))) {
-				for (ClassEntry classEntry : classes) {
-					progress.step(steps++, classEntry.getFullName());
-					writeRoot(writer, mappings, classEntry);
-				}
+					StringWriter block = new StringWriter();
+					try (PrintWriter writer = new LFPrintWriter(block)) {
+						writeRoot(writer, tree, (ClassEntry) root.getEntry());
+					}
+					return new byte[][]{block.toString().getBytes(StandardCharsets.UTF_8)};
+				});
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -151,6 +156,8 @@ public enum EnigmaMappingsWriter implements MappingsWriter {
 		}
 	};
 
+	private static final Comparator<Entry<?>> ROOT_ORDER = Comparator.comparing(Object::toString);
+
 	protected void writeRoot(PrintWriter writer, EntryTree<EntryMapping> mappings, ClassEntry classEntry) {
 		Collection<Entry<?>> children = groupChildren(mappings.getChildren(classEntry));
 
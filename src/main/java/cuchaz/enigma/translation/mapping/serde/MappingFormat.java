@@ -19,7 +19,8 @@ public enum MappingFormat {
 	TINY_FILE(null, TinyMappingsReader.INSTANCE),
 	SRG_FILE(SrgMappingsWriter.INSTANCE, null),
 	MCP_DELTAS(McpMappingsWriter.WRITER_DELTA, McpMappingsReader.INSTANCE),
-	MCP_FULL(McpMappingsWriter.WRITER_FULL, null);
+	MCP_FULL(McpMappingsWriter.WRITER_FULL, null),
+	BINARY_FILE(BinaryMappingsWriter.INSTANCE, BinaryMappingsReader.INSTANCE);
 
 	private final MappingsWriter writer;
 	private final MappingsReader reader;
@@ -37,6 +38,8 @@ public enum MappingFormat {
 		if (writer == null) {
 			throw new IllegalStateException(name() + " does not support writing");
 		}
+		// let the single file formats know what changed, even if this delta is written elsewhere
+		MappingSegmentCache.recordChanges(mappings, delta);
 		writer.write(mappings, delta, path, progressListener, saveParameters);
 	}
 
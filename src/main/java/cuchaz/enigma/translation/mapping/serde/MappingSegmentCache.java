@@ -0,0 +1,197 @@
+package cuchaz.enigma.translation.mapping.serde;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import cuchaz.enigma.ProgressListener;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingDelta;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.EntryTreeNode;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.Entry;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the serialized block of every root class of a single file mapping format between saves of the same mappings,
+ * so that a save only renders the roots changed since the previous one and then writes the whole file in one go.
+ * <p>
+ * The changed roots of every delta written for a mapping tree are recorded in all caches of that tree, whichever
+ * format or file they were written to, so deltas that are taken for one file are not lost for another. A cache is
+ * dropped when its file was modified by anything else since it was last written. Mappings must only be changed
+ * through deltas between saves, as changes that no delta records are not picked up.
+ */
+final class MappingSegmentCache {
+	private static final Cache<EntryTree<?>, Map<Key, MappingSegmentCache>> CACHES = CacheBuilder.newBuilder()
+			.weakKeys()
+			.build();
+
+	private Map<Entry<?>, byte[][]> segments = new HashMap<>();
+	private final Set<Entry<?>> dirtyRoots = new HashSet<>();
+	private boolean classMappingsChanged;
+
+	private FileTime lastModified;
+	private long size = -1;
+
+	/**
+	 * Renders every block of a root and everything under it, one block for each section of the file.
+	 */
+	interface Renderer {
+		byte[][] render(EntryTree<EntryMapping> mappings, EntryTreeNode<EntryMapping> root);
+	}
+
+	/**
+	 * Records the roots changed by a delta in all caches of the given mappings.
+	 */
+	static void recordChanges(EntryTree<?> mappings, MappingDelta<?> delta) {
+		Map<Key, MappingSegmentCache> caches = CACHES.getIfPresent(mappings);
+		if (caches == null || caches.isEmpty()) {
+			return;
+		}
+
+		Set<Entry<?>> changedRoots = delta.getChangedRoots().collect(Collectors.toSet());
+		boolean classMappingsChanged = changesClassMappings(delta.getChanges());
+
+		for (MappingSegmentCache cache : caches.values()) {
+			synchronized (cache) {
+				cache.dirtyRoots.addAll(changedRoots);
+				cache.classMappingsChanged |= classMappingsChanged;
+			}
+		}
+	}
+
+	private static boolean changesClassMappings(EntryTree<?> changes) {
+		for (EntryTreeNode<?> node : changes) {
+			if (node.hasValue() && node.getEntry() instanceof ClassEntry) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes a file made up of a header followed by every section, each section holding the blocks of all roots in the
+	 * given order. Blocks of roots that did not change since this file was last written are reused.
+	 *
+	 * @param format                 identifies the format and its settings, so that the blocks of different formats
+	 *                               written to the same file are never mixed up
+	 * @param dependsOnClassMappings whether the blocks of a root also depend on the mappings of classes in other roots,
+	 *                               in which case any class mapping change renders every root again
+	 */
+	static void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, String format, ProgressListener progress,
+					  byte[] header, int sectionCount, Comparator<Entry<?>> rootOrder, boolean dependsOnClassMappings, Renderer renderer) throws IOException {
+		recordChanges(mappings, delta);
+
+		MappingSegmentCache cache = get(mappings, new Key(format, path));
+		synchronized (cache) {
+			cache.writeFile(mappings, path, progress, header, sectionCount, rootOrder, dependsOnClassMappings, renderer);
+		}
+	}
+
+	private static MappingSegmentCache get(EntryTree<?> mappings, Key key) {
+		try {
+			return CACHES.get(mappings, ConcurrentHashMap::new).computeIfAbsent(key, k -> new MappingSegmentCache());
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void writeFile(EntryTree<EntryMapping> mappings, Path path, ProgressListener progress,
+						   byte[] header, int sectionCount, Comparator<Entry<?>> rootOrder, boolean dependsOnClassMappings, Renderer renderer) throws IOException {
+		if (!isUnchanged(path) || (dependsOnClassMappings && classMappingsChanged)) {
+			segments.clear();
+		}
+
+		List<EntryTreeNode<EntryMapping>> roots = mappings.getRootNodes()
+				.sorted(Comparator.comparing(EntryTreeNode::getEntry, rootOrder))
+				.collect(Collectors.toList());
+
+		progress.init(roots.size(), "Generating mappings");
+
+		Map<Entry<?>, byte[][]> renderedSegments = new HashMap<>(roots.size());
+		List<byte[][]> orderedSegments = new ArrayList<>(roots.size());
+
+		int steps = 0;
+		for (EntryTreeNode<EntryMapping> root : roots) {
+			Entry<?> rootEntry = root.getEntry();
+			byte[][] segment = dirtyRoots.contains(rootEntry) ? null : segments.get(rootEntry);
+			if (segment == null) {
+				progress.step(steps, rootEntry.getName());
+				segment = renderer.render(mappings, root);
+			}
+			steps++;
+
+			renderedSegments.put(rootEntry, segment);
+			orderedSegments.add(segment);
+		}
+
+		progress.init(1, "Writing mappings");
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+			out.write(header);
+			for (int section = 0; section < sectionCount; section++) {
+				for (byte[][] segment : orderedSegments) {
+					out.write(segment[section]);
+				}
+			}
+		} catch (IOException e) {
+			segments.clear();
+			size = -1;
+			throw e;
+		}
+
+		progress.step(1, "Done!");
+
+		segments = renderedSegments;
+		dirtyRoots.clear();
+		classMappingsChanged = false;
+
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		lastModified = attributes.lastModifiedTime();
+		size = attributes.size();
+	}
+
+	private boolean isUnchanged(Path path) throws IOException {
+		if (size < 0 || !Files.exists(path)) {
+			return false;
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return attributes.size() == size && attributes.lastModifiedTime().equals(lastModified);
+	}
+
+	private static final class Key {
+		private final String format;
+		private final Path path;
+
+		Key(String format, Path path) {
+			this.format = format;
+			this.path = path.toAbsolutePath().normalize();
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) obj;
+			return format.equals(key.format) && path.equals(key.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(format, path);
+		}
+	}
+}
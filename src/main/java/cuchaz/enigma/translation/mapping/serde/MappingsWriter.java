@@ -9,6 +9,14 @@ import cuchaz.enigma.translation.mapping.tree.EntryTree;
 import java.nio.file.Path;
 
 public interface MappingsWriter {
+	/**
+	 * Writes the mappings, given what changed in them since they were last written to this path.
+	 * <p>
+	 * Writers may rely on the delta to skip unchanged parts: directory formats only rewrite the files of changed
+	 * classes, and single file formats reuse the rendered blocks of unchanged root classes from the last save of the
+	 * same mapping tree. The delta must therefore cover every change made to the tree since then, or the output keeps
+	 * the stale contents. When in doubt, write with {@link MappingDelta#added} to render everything again.
+	 */
 	void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, ProgressListener progress, MappingSaveParameters saveParameters);
 
 	default void write(EntryTree<EntryMapping> mappings, Path path, ProgressListener progress, MappingSaveParameters saveParameters) {
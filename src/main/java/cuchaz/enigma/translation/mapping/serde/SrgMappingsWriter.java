@@ -14,56 +14,47 @@ import cuchaz.enigma.translation.representation.entry.ClassEntry;
 import cuchaz.enigma.translation.representation.entry.Entry;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
-import cuchaz.enigma.utils.LFPrintWriter;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public enum SrgMappingsWriter implements MappingsWriter {
 	INSTANCE;
 
+	private static final Comparator<Entry<?>> ROOT_ORDER = Comparator.comparing(Entry::getName);
+
+	/**
+	 * Every root class is rendered as three blocks, holding the class, field and method lines of its subtree. Method
+	 * lines contain remapped descriptors, so a changed class mapping renders every root again; otherwise only the roots
+	 * changed by the delta are.
+	 */
 	@Override
 	public void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, ProgressListener progress, MappingSaveParameters saveParameters) {
 		try {
-			Files.deleteIfExists(path);
-			Files.createFile(path);
+			MappingSegmentCache.write(mappings, delta, path, "srg", progress, new byte[0], 3, ROOT_ORDER, true, (tree, root) -> {
+				List<String> classLines = new ArrayList<>();
+				List<String> fieldLines = new ArrayList<>();
+				List<String> methodLines = new ArrayList<>();
+				writeEntry(classLines, fieldLines, methodLines, tree, root.getEntry());
+
+				return new byte[][]{toBlock(classLines), toBlock(fieldLines), toBlock(methodLines)};
+			});
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
 
-		List<String> classLines = new ArrayList<>();
-		List<String> fieldLines = new ArrayList<>();
-		List<String> methodLines = new ArrayList<>();
-
-		Collection<Entry<?>> rootEntries = Lists.newArrayList(mappings).stream()
-				.map(EntryTreeNode::getEntry)
-				.collect(Collectors.toList());
-		progress.init(rootEntries.size(), "Generating mappings");
-
-		int steps = 0;
-		for (Entry<?> entry : sorted(rootEntries)) {
-			progress.step(steps++, entry.getName());
-			writeEntry(classLines, fieldLines, methodLines, mappings, entry);
-		}
-
-		progress.init(3, "Writing mappings");
-		try (PrintWriter writer = new LFPrintWriter(Files.newBufferedWriter(path))) {
-			progress.step(0, "Classes");
-			classLines.forEach(writer::println);
-			progress.step(1, "Fields");
-			fieldLines.forEach(writer::println);
-			progress.step(2, "Methods");
-			methodLines.forEach(writer::println);
-		} catch (IOException e) {
-			e.printStackTrace();
+	private byte[] toBlock(List<String> lines) {
+		StringBuilder builder = new StringBuilder();
+		for (String line : lines) {
+			builder.append(line).append('\n');
 		}
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
 	}
 
 	private void writeEntry(List<String> classes, List<String> fields, List<String> methods, EntryTree<EntryMapping> mappings, Entry<?> entry) {
@@ -8,9 +8,8 @@ import cuchaz.enigma.translation.mapping.MappingPair;
 import cuchaz.enigma.translation.mapping.MappingSaveParameters;
 import cuchaz.enigma.translation.mapping.tree.EntryTree;
 import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
-import cuchaz.enigma.translation.representation.MethodDescriptor;
-import cuchaz.enigma.translation.representation.TypeDescriptor;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.EntryInterner;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import cuchaz.enigma.translation.representation.entry.LocalVariableEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
@@ -74,7 +73,7 @@ public enum TinyMappingsReader implements MappingsReader {
 	}
 
 	private MappingPair<ClassEntry, EntryMapping> parseClass(String[] tokens) {
-		ClassEntry obfuscatedEntry = new ClassEntry(tokens[1]);
+		ClassEntry obfuscatedEntry = EntryInterner.classEntry(tokens[1]);
 		String mapping = tokens[2];
 		if (mapping.indexOf('$') > 0) {
 			// inner classes should map to only the final part
@@ -84,27 +83,19 @@ public enum TinyMappingsReader implements MappingsReader {
 	}
 
 	private MappingPair<FieldEntry, EntryMapping> parseField(String[] tokens) {
-		ClassEntry ownerClass = new ClassEntry(tokens[1]);
-		TypeDescriptor descriptor = new TypeDescriptor(tokens[2]);
-
-		FieldEntry obfuscatedEntry = new FieldEntry(ownerClass, tokens[3], descriptor);
+		FieldEntry obfuscatedEntry = EntryInterner.fieldEntry(tokens[1], tokens[3], tokens[2]);
 		String mapping = tokens[4];
 		return new MappingPair<>(obfuscatedEntry, new EntryMapping(mapping));
 	}
 
 	private MappingPair<MethodEntry, EntryMapping> parseMethod(String[] tokens) {
-		ClassEntry ownerClass = new ClassEntry(tokens[1]);
-		MethodDescriptor descriptor = new MethodDescriptor(tokens[2]);
-
-		MethodEntry obfuscatedEntry = new MethodEntry(ownerClass, tokens[3], descriptor);
+		MethodEntry obfuscatedEntry = EntryInterner.methodEntry(tokens[1], tokens[3], tokens[2]);
 		String mapping = tokens[4];
 		return new MappingPair<>(obfuscatedEntry, new EntryMapping(mapping));
 	}
 
 	private MappingPair<LocalVariableEntry, EntryMapping> parseArgument(String[] tokens) {
-		ClassEntry ownerClass = new ClassEntry(tokens[1]);
-		MethodDescriptor ownerDescriptor = new MethodDescriptor(tokens[2]);
-		MethodEntry ownerMethod = new MethodEntry(ownerClass, tokens[3], ownerDescriptor);
+		MethodEntry ownerMethod = EntryInterner.methodEntry(tokens[1], tokens[3], tokens[2]);
 		int variableIndex = Integer.parseInt(tokens[4]);
 
 		String mapping = tokens[5];
@@ -1,7 +1,6 @@
 package cuchaz.enigma.translation.mapping.serde;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.Lists;
 import cuchaz.enigma.ProgressListener;
 import cuchaz.enigma.translation.MappingTranslator;
 import cuchaz.enigma.translation.Translator;
@@ -16,11 +15,8 @@ import cuchaz.enigma.translation.representation.entry.Entry;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -29,9 +25,8 @@ import java.util.Set;
 public class TinyMappingsWriter implements MappingsWriter {
     private static final String VERSION_CONSTANT = "v1";
     private static final Joiner TAB_JOINER = Joiner.on('\t');
+    private static final Comparator<Entry<?>> ROOT_ORDER = Comparator.comparing(Object::toString);
 
-    // HACK: as of enigma 0.13.1, some fields seem to appear duplicated?
-    private final Set<String> writtenLines = new HashSet<>();
     private final String nameObf;
     private final String nameDeobf;
 
@@ -40,27 +35,26 @@ public class TinyMappingsWriter implements MappingsWriter {
         this.nameDeobf = nameDeobf;
     }
 
+    /**
+     * Every root class is written as one block holding its whole subtree, in the order of the root classes' names.
+     * Only the blocks of classes changed by the delta are rendered again, the rest are taken from the previous save.
+     */
     @Override
     public void write(EntryTree<EntryMapping> mappings, MappingDelta<EntryMapping> delta, Path path, ProgressListener progress, MappingSaveParameters saveParameters) {
-        try {
-            Files.deleteIfExists(path);
-            Files.createFile(path);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
-            writeLine(writer, new String[]{VERSION_CONSTANT, nameObf, nameDeobf});
+        byte[] header = (TAB_JOINER.join(VERSION_CONSTANT, nameObf, nameDeobf) + "\n").getBytes(StandardCharsets.UTF_8);
 
-            Lists.newArrayList(mappings).stream()
-                    .map(EntryTreeNode::getEntry).sorted(Comparator.comparing(Object::toString))
-                    .forEach(entry -> writeEntry(writer, mappings, entry));
+        try {
+            MappingSegmentCache.write(mappings, delta, path, "tiny:" + nameObf + ":" + nameDeobf, progress, header, 1, ROOT_ORDER, false, (tree, root) -> {
+                Block block = new Block();
+                writeEntry(block, tree, root.getEntry());
+                return new byte[][]{block.toString().getBytes(StandardCharsets.UTF_8)};
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void writeEntry(Writer writer, EntryTree<EntryMapping> mappings, Entry<?> entry) {
+    private void writeEntry(Block block, EntryTree<EntryMapping> mappings, Entry<?> entry) {
         EntryTreeNode<EntryMapping> node = mappings.findNode(entry);
         if (node == null) {
             return;
@@ -71,48 +65,37 @@ public class TinyMappingsWriter implements MappingsWriter {
         EntryMapping mapping = mappings.get(entry);
         if (mapping != null && !entry.getName().equals(mapping.getTargetName())) {
             if (entry instanceof ClassEntry) {
-                writeClass(writer, (ClassEntry) entry, translator);
+                writeClass(block, (ClassEntry) entry, translator);
             } else if (entry instanceof FieldEntry) {
-                writeLine(writer, serializeEntry(entry, mapping.getTargetName()));
+                block.writeLine(serializeEntry(entry, mapping.getTargetName()));
             } else if (entry instanceof MethodEntry) {
-                writeLine(writer, serializeEntry(entry, mapping.getTargetName()));
+                block.writeLine(serializeEntry(entry, mapping.getTargetName()));
             }
         }
 
-        writeChildren(writer, mappings, node);
+        writeChildren(block, mappings, node);
     }
 
-    private void writeChildren(Writer writer, EntryTree<EntryMapping> mappings, EntryTreeNode<EntryMapping> node) {
+    private void writeChildren(Block block, EntryTree<EntryMapping> mappings, EntryTreeNode<EntryMapping> node) {
         node.getChildren().stream()
                 .filter(e -> e instanceof FieldEntry).sorted()
-                .forEach(child -> writeEntry(writer, mappings, child));
+                .forEach(child -> writeEntry(block, mappings, child));
 
         node.getChildren().stream()
                 .filter(e -> e instanceof MethodEntry).sorted()
-                .forEach(child -> writeEntry(writer, mappings, child));
+                .forEach(child -> writeEntry(block, mappings, child));
 
         node.getChildren().stream()
                 .filter(e -> e instanceof ClassEntry).sorted()
-                .forEach(child -> writeEntry(writer, mappings, child));
+                .forEach(child -> writeEntry(block, mappings, child));
     }
 
-    private void writeClass(Writer writer, ClassEntry entry, Translator translator) {
+    private void writeClass(Block block, ClassEntry entry, Translator translator) {
         ClassEntry translatedEntry = translator.translate(entry);
 
         String obfClassName = entry.getFullName();
         String deobfClassName = translatedEntry.getFullName();
-        writeLine(writer, new String[]{"CLASS", obfClassName, deobfClassName});
-    }
-
-    private void writeLine(Writer writer, String[] data) {
-        try {
-            String line = TAB_JOINER.join(data) + "\n";
-            if (writtenLines.add(line)) {
-                writer.write(line);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        block.writeLine(new String[]{"CLASS", obfClassName, deobfClassName});
     }
 
     private String[] serializeEntry(Entry<?> entry, String... extraFields) {
@@ -142,4 +125,23 @@ public class TinyMappingsWriter implements MappingsWriter {
 
         return data;
     }
+
+    private static class Block {
+        private final StringBuilder builder = new StringBuilder();
+
+        // HACK: as of enigma 0.13.1, some fields seem to appear duplicated?
+        private final Set<String> writtenLines = new HashSet<>();
+
+        void writeLine(String[] data) {
+            String line = TAB_JOINER.join(data) + "\n";
+            if (writtenLines.add(line)) {
+                builder.append(line);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
 }
@@ -10,6 +10,9 @@ import cuchaz.enigma.translation.representation.entry.Entry;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class DeltaTrackingTree<T> implements EntryTree<T> {
@@ -18,6 +21,8 @@ public class DeltaTrackingTree<T> implements EntryTree<T> {
 	private EntryTree<T> deltaReference;
 	private EntryTree<Object> changes = new HashEntryTree<>();
 
+	private final List<Consumer<Entry<?>>> changeListeners = new CopyOnWriteArrayList<>();
+
 	public DeltaTrackingTree(EntryTree<T> delegate) {
 		this.delegate = delegate;
 		this.deltaReference = new HashEntryTree<>(delegate);
@@ -33,19 +38,30 @@ public class DeltaTrackingTree<T> implements EntryTree<T> {
 
 	@Override
 	public void insert(Entry<?> entry, T value) {
-		trackChange(entry);
 		delegate.insert(entry, value);
+		trackChange(entry);
 	}
 
 	@Nullable
 	@Override
 	public T remove(Entry<?> entry) {
+		T removed = delegate.remove(entry);
 		trackChange(entry);
-		return delegate.remove(entry);
+		return removed;
 	}
 
 	public void trackChange(Entry<?> entry) {
 		changes.insert(entry, MappingDelta.PLACEHOLDER);
+		for (Consumer<Entry<?>> listener : changeListeners) {
+			listener.accept(entry);
+		}
+	}
+
+	/**
+	 * Registers a listener that is called with every entry added to the change set, after the change has been applied.
+	 */
+	public void addChangeListener(Consumer<Entry<?>> listener) {
+		changeListeners.add(listener);
 	}
 
 	@Nullable
@@ -135,6 +135,28 @@ public class HashEntryTree<T> implements EntryTree<T> {
 		return path;
 	}
 
+	/**
+	 * Moves the mappings of another tree into this one, replacing values that are already present. Root nodes that are
+	 * not in this tree yet are adopted as they are, so merging trees with distinct roots is cheap. The other tree is
+	 * left empty.
+	 */
+	public void merge(HashEntryTree<T> other) {
+		for (Map.Entry<Entry<?>, HashTreeNode<T>> entry : other.root.entrySet()) {
+			HashTreeNode<T> existing = root.putIfAbsent(entry.getKey(), entry.getValue());
+			if (existing == null) {
+				continue;
+			}
+
+			for (EntryTreeNode<T> node : entry.getValue().getNodesRecursively()) {
+				if (node.hasValue()) {
+					insert(node.getEntry(), node.getValue());
+				}
+			}
+		}
+
+		other.root.clear();
+	}
+
 	private void removeDeadAlong(List<HashTreeNode<T>> path) {
 		for (int i = path.size() - 1; i >= 0; i--) {
 			HashTreeNode<T> node = path.get(i);
@@ -18,6 +18,7 @@ import cuchaz.enigma.translation.mapping.EntryMapping;
 import cuchaz.enigma.translation.mapping.EntryResolver;
 import cuchaz.enigma.translation.mapping.EntryMap;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.EntryInterner;
 import cuchaz.enigma.utils.Utils;
 
 import java.util.ArrayList;
@@ -29,6 +30,8 @@ public class MethodDescriptor implements Translatable {
 	private List<TypeDescriptor> argumentDescs;
 	private TypeDescriptor returnDesc;
 
+	private int hash;
+
 	public MethodDescriptor(String desc) {
 		try {
 			this.argumentDescs = Lists.newArrayList();
@@ -44,11 +47,11 @@ public class MethodDescriptor implements Translatable {
 					break;
 				} else {
 					String type = TypeDescriptor.parseFirst(desc.substring(i));
-					this.argumentDescs.add(new TypeDescriptor(type));
+					this.argumentDescs.add(EntryInterner.typeDescriptor(type));
 					i += type.length();
 				}
 			}
-			this.returnDesc = new TypeDescriptor(TypeDescriptor.parseFirst(desc.substring(i)));
+			this.returnDesc = EntryInterner.typeDescriptor(TypeDescriptor.parseFirst(desc.substring(i)));
 		} catch (Exception ex) {
 			throw new IllegalArgumentException("Unable to parse method descriptor: " + desc, ex);
 		}
@@ -92,12 +95,20 @@ public class MethodDescriptor implements Translatable {
 	}
 
 	public boolean equals(MethodDescriptor other) {
-		return this.argumentDescs.equals(other.argumentDescs) && this.returnDesc.equals(other.returnDesc);
+		if (this == other) {
+			return true;
+		}
+		return hashCode() == other.hashCode() && this.argumentDescs.equals(other.argumentDescs) && this.returnDesc.equals(other.returnDesc);
 	}
 
 	@Override
 	public int hashCode() {
-		return Utils.combineHashesOrdered(this.argumentDescs.hashCode(), this.returnDesc.hashCode());
+		int hash = this.hash;
+		if (hash == 0) {
+			hash = Utils.combineHashesOrdered(this.argumentDescs.hashCode(), this.returnDesc.hashCode());
+			this.hash = hash;
+		}
+		return hash;
 	}
 
 	public boolean hasClass(ClassEntry classEntry) {
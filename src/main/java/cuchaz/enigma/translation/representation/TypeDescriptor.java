@@ -20,6 +20,7 @@ import cuchaz.enigma.translation.mapping.EntryMapping;
 import cuchaz.enigma.translation.mapping.EntryResolver;
 import cuchaz.enigma.translation.mapping.EntryMap;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.EntryInterner;
 
 import java.util.Map;
 import java.util.function.Function;
@@ -150,7 +151,7 @@ public class TypeDescriptor implements Translatable {
 				name = name.substring(0, pos);
 			}
 
-			return new ClassEntry(name);
+			return EntryInterner.classEntry(name);
 
 		} else if (isArray() && getArrayType().isType()) {
 			return getArrayType().getTypeEntry();
@@ -43,8 +43,8 @@ public class ClassDefEntry extends ClassEntry implements DefEntry<ClassEntry> {
 	}
 
 	public static ClassDefEntry parse(int access, String name, String signature, String superName, String[] interfaces) {
-		ClassEntry superClass = superName != null ? new ClassEntry(superName) : null;
-		ClassEntry[] interfaceClasses = Arrays.stream(interfaces).map(ClassEntry::new).toArray(ClassEntry[]::new);
+		ClassEntry superClass = superName != null ? EntryInterner.classEntry(superName) : null;
+		ClassEntry[] interfaceClasses = Arrays.stream(interfaces).map(EntryInterner::classEntry).toArray(ClassEntry[]::new);
 		return new ClassDefEntry(name, Signature.createSignature(signature), new AccessFlags(access), superClass, interfaceClasses);
 	}
 
@@ -82,7 +82,10 @@ public class ClassEntry extends ParentedEntry<ClassEntry> implements Comparable<
 	}
 
 	public boolean equals(ClassEntry other) {
-		return other != null && Objects.equals(parent, other.parent) && this.name.equals(other.name);
+		if (this == other) {
+			return true;
+		}
+		return other != null && fullName.hashCode() == other.fullName.hashCode() && Objects.equals(parent, other.parent) && this.name.equals(other.name);
 	}
 
 	@Override
@@ -174,7 +177,7 @@ public class ClassEntry extends ParentedEntry<ClassEntry> implements Comparable<
 	public static ClassEntry getOuterClass(String name) {
 		int index = name.lastIndexOf('$');
 		if (index >= 0) {
-			return new ClassEntry(name.substring(0, index));
+			return EntryInterner.classEntry(name.substring(0, index));
 		}
 		return null;
 	}
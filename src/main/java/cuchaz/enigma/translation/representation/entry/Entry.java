@@ -49,6 +49,9 @@ public interface Entry<P extends Entry<?>> extends Translatable {
 		return parent.getContainingClass();
 	}
 
+	/**
+	 * @return this entry and all of its parents, starting from the root. The returned list must not be modified.
+	 */
 	default List<Entry<?>> getAncestry() {
 		P parent = getParent();
 		List<Entry<?>> entries = new ArrayList<>();
@@ -62,12 +65,12 @@ public interface Entry<P extends Entry<?>> extends Translatable {
 	@Nullable
 	@SuppressWarnings("unchecked")
 	default <E extends Entry<?>> E findAncestor(Class<E> type) {
-		List<Entry<?>> ancestry = getAncestry();
-		for (int i = ancestry.size() - 1; i >= 0; i--) {
-			Entry<?> ancestor = ancestry.get(i);
+		Entry<?> ancestor = this;
+		while (ancestor != null) {
 			if (type.isAssignableFrom(ancestor.getClass())) {
 				return (E) ancestor;
 			}
+			ancestor = ancestor.getParent();
 		}
 		return null;
 	}
@@ -0,0 +1,81 @@
+package cuchaz.enigma.translation.representation.entry;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+
+/**
+ * Canonicalizes plain class, field and method entries along with their descriptors, so that equal entries share a
+ * single instance and equality checks mostly succeed on identity. Instances are only weakly held.
+ * <p>
+ * Definition entries carry access flags and signatures and are never interned, only their owners and descriptors are.
+ */
+public final class EntryInterner {
+	private static final Interner<ClassEntry> CLASS_INTERNER = Interners.newWeakInterner();
+	private static final Interner<FieldEntry> FIELD_INTERNER = Interners.newWeakInterner();
+	private static final Interner<MethodEntry> METHOD_INTERNER = Interners.newWeakInterner();
+
+	private static final LoadingCache<String, ClassEntry> CLASSES = CacheBuilder.newBuilder()
+			.weakValues()
+			.build(CacheLoader.from(EntryInterner::createClassEntry));
+
+	private static final LoadingCache<String, TypeDescriptor> TYPE_DESCRIPTORS = CacheBuilder.newBuilder()
+			.weakValues()
+			.build(CacheLoader.from(TypeDescriptor::new));
+
+	private static final LoadingCache<String, MethodDescriptor> METHOD_DESCRIPTORS = CacheBuilder.newBuilder()
+			.weakValues()
+			.build(CacheLoader.from(MethodDescriptor::new));
+
+	private EntryInterner() {
+	}
+
+	public static ClassEntry classEntry(String name) {
+		return CLASSES.getUnchecked(name);
+	}
+
+	public static TypeDescriptor typeDescriptor(String desc) {
+		return TYPE_DESCRIPTORS.getUnchecked(desc);
+	}
+
+	public static MethodDescriptor methodDescriptor(String desc) {
+		return METHOD_DESCRIPTORS.getUnchecked(desc);
+	}
+
+	public static FieldEntry fieldEntry(String owner, String name, String desc) {
+		return FIELD_INTERNER.intern(new FieldEntry(classEntry(owner), name, typeDescriptor(desc)));
+	}
+
+	public static MethodEntry methodEntry(String owner, String name, String desc) {
+		return METHOD_INTERNER.intern(new MethodEntry(classEntry(owner), name, methodDescriptor(desc)));
+	}
+
+	public static ClassEntry intern(ClassEntry entry) {
+		if (entry.getClass() != ClassEntry.class) {
+			return entry;
+		}
+		return CLASS_INTERNER.intern(entry);
+	}
+
+	public static FieldEntry intern(FieldEntry entry) {
+		if (entry.getClass() != FieldEntry.class) {
+			return entry;
+		}
+		return FIELD_INTERNER.intern(entry);
+	}
+
+	public static MethodEntry intern(MethodEntry entry) {
+		if (entry.getClass() != MethodEntry.class) {
+			return entry;
+		}
+		return METHOD_INTERNER.intern(entry);
+	}
+
+	private static ClassEntry createClassEntry(String name) {
+		return CLASS_INTERNER.intern(new ClassEntry(ClassEntry.getOuterClass(name), ClassEntry.getInnerName(name)));
+	}
+}
@@ -34,7 +34,7 @@ public class FieldDefEntry extends FieldEntry implements DefEntry<ClassEntry> {
 	}
 
 	public static FieldDefEntry parse(ClassEntry owner, int access, String name, String desc, String signature) {
-		return new FieldDefEntry(owner, name, new TypeDescriptor(desc), Signature.createTypedSignature(signature), new AccessFlags(access));
+		return new FieldDefEntry(owner, name, EntryInterner.typeDescriptor(desc), Signature.createTypedSignature(signature), new AccessFlags(access));
 	}
 
 	public static FieldDefEntry parse(FieldDefinition definition) {
@@ -22,6 +22,8 @@ import javax.annotation.Nullable;
 public class FieldEntry extends ParentedEntry<ClassEntry> implements Comparable<FieldEntry> {
 	protected final TypeDescriptor desc;
 
+	private int hash;
+
 	public FieldEntry(ClassEntry parent, String name, TypeDescriptor desc) {
 		super(parent, name);
 
@@ -32,7 +34,7 @@ public class FieldEntry extends ParentedEntry<ClassEntry> implements Comparable<
 	}
 
 	public static FieldEntry parse(String owner, String name, String desc) {
-		return new FieldEntry(new ClassEntry(owner), name, new TypeDescriptor(desc));
+		return EntryInterner.fieldEntry(owner, name, desc);
 	}
 
 	@Override
@@ -62,7 +64,12 @@ public class FieldEntry extends ParentedEntry<ClassEntry> implements Comparable<
 
 	@Override
 	public int hashCode() {
-		return Utils.combineHashesOrdered(this.parent, this.name, this.desc);
+		int hash = this.hash;
+		if (hash == 0) {
+			hash = Utils.combineHashesOrdered(this.parent, this.name, this.desc);
+			this.hash = hash;
+		}
+		return hash;
 	}
 
 	@Override
@@ -71,7 +78,10 @@ public class FieldEntry extends ParentedEntry<ClassEntry> implements Comparable<
 	}
 
 	public boolean equals(FieldEntry other) {
-		return name.equals(other.name) && this.parent.equals(other.parent) && desc.equals(other.desc);
+		if (this == other) {
+			return true;
+		}
+		return hashCode() == other.hashCode() && name.equals(other.name) && this.parent.equals(other.parent) && desc.equals(other.desc);
 	}
 
 	@Override
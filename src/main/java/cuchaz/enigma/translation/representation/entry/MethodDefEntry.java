@@ -34,7 +34,7 @@ public class MethodDefEntry extends MethodEntry implements DefEntry<ClassEntry>
 	}
 
 	public static MethodDefEntry parse(ClassEntry owner, int access, String name, String desc, String signature) {
-		return new MethodDefEntry(owner, name, new MethodDescriptor(desc), Signature.createSignature(signature), new AccessFlags(access));
+		return new MethodDefEntry(owner, name, EntryInterner.methodDescriptor(desc), Signature.createSignature(signature), new AccessFlags(access));
 	}
 
 	public static MethodDefEntry parse(MethodDefinition definition) {
@@ -70,7 +70,7 @@ public class MethodDefEntry extends MethodEntry implements DefEntry<ClassEntry>
 
 	@Override
 	public MethodDefEntry withParent(ClassEntry parent) {
-		return new MethodDefEntry(new ClassEntry(parent.getFullName()), name, descriptor, signature, access);
+		return new MethodDefEntry(EntryInterner.classEntry(parent.getFullName()), name, descriptor, signature, access);
 	}
 
 	public int getArgumentIndex(ClassDefEntry ownerEntry, int localVariableIndex) {
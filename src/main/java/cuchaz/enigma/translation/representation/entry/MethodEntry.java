@@ -23,6 +23,8 @@ public class MethodEntry extends ParentedEntry<ClassEntry> implements Comparable
 
 	protected final MethodDescriptor descriptor;
 
+	private int hash;
+
 	public MethodEntry(ClassEntry parent, String name, MethodDescriptor descriptor) {
 		super(parent, name);
 
@@ -33,7 +35,7 @@ public class MethodEntry extends ParentedEntry<ClassEntry> implements Comparable
 	}
 
 	public static MethodEntry parse(String owner, String name, String desc) {
-		return new MethodEntry(new ClassEntry(owner), name, new MethodDescriptor(desc));
+		return EntryInterner.methodEntry(owner, name, desc);
 	}
 
 	@Override
@@ -62,12 +64,17 @@ public class MethodEntry extends ParentedEntry<ClassEntry> implements Comparable
 
 	@Override
 	public MethodEntry withParent(ClassEntry parent) {
-		return new MethodEntry(new ClassEntry(parent.getFullName()), name, descriptor);
+		return new MethodEntry(EntryInterner.classEntry(parent.getFullName()), name, descriptor);
 	}
 
 	@Override
 	public int hashCode() {
-		return Utils.combineHashesOrdered(this.parent, this.name, this.descriptor);
+		int hash = this.hash;
+		if (hash == 0) {
+			hash = Utils.combineHashesOrdered(this.parent, this.name, this.descriptor);
+			this.hash = hash;
+		}
+		return hash;
 	}
 
 	@Override
@@ -76,7 +83,10 @@ public class MethodEntry extends ParentedEntry<ClassEntry> implements Comparable
 	}
 
 	public boolean equals(MethodEntry other) {
-		return this.parent.equals(other.getParent()) && this.name.equals(other.getName()) && this.descriptor.equals(other.getDesc());
+		if (this == other) {
+			return true;
+		}
+		return hashCode() == other.hashCode() && this.parent.equals(other.getParent()) && this.name.equals(other.getName()) && this.descriptor.equals(other.getDesc());
 	}
 
 	@Override
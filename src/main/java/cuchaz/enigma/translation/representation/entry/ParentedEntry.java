@@ -12,6 +12,7 @@
 package cuchaz.enigma.translation.representation.entry;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import cuchaz.enigma.translation.Translatable;
 import cuchaz.enigma.translation.Translator;
 import cuchaz.enigma.translation.mapping.EntryMap;
@@ -20,11 +21,14 @@ import cuchaz.enigma.translation.mapping.EntryResolver;
 import cuchaz.enigma.translation.mapping.ResolutionStrategy;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public abstract class ParentedEntry<P extends Entry<?>> implements Entry<P> {
 	protected final P parent;
 	protected final String name;
 
+	private List<Entry<?>> ancestry;
+
 	protected ParentedEntry(P parent, String name) {
 		this.parent = parent;
 		this.name = name;
@@ -51,6 +55,24 @@ public abstract class ParentedEntry<P extends Entry<?>> implements Entry<P> {
 		return parent;
 	}
 
+	@Override
+	public List<Entry<?>> getAncestry() {
+		List<Entry<?>> ancestry = this.ancestry;
+		if (ancestry == null) {
+			if (parent != null) {
+				List<Entry<?>> parentAncestry = parent.getAncestry();
+				ancestry = ImmutableList.<Entry<?>>builderWithExpectedSize(parentAncestry.size() + 1)
+						.addAll(parentAncestry)
+						.add(this)
+						.build();
+			} else {
+				ancestry = ImmutableList.of(this);
+			}
+			this.ancestry = ancestry;
+		}
+		return ancestry;
+	}
+
 	@Override
 	public ParentedEntry<P> translate(Translator translator, EntryResolver resolver, EntryMap<EntryMapping> mappings) {
 		P parent = getParent();
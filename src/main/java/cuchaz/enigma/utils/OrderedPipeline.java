@@ -0,0 +1,84 @@
+package cuchaz.enigma.utils;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processes inputs on a pool of worker threads and hands the results to a sink on the calling thread, in input
+ * order. Only a bounded number of inputs is in flight at any time, so memory use depends on the number of workers
+ * rather than on the number of inputs, and the sink runs while the workers keep going.
+ */
+public final class OrderedPipeline {
+	private OrderedPipeline() {
+	}
+
+	public static int defaultThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	public static <T, R> void run(Iterable<T> inputs, Worker<T, R> worker, Sink<T, R> sink, int threads, int maxInFlight) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+				.setDaemon(true)
+				.setNameFormat("pipeline-worker-%d")
+				.build()
+		);
+
+		try {
+			Deque<InFlight<T, R>> window = new ArrayDeque<>(maxInFlight);
+			for (T input : inputs) {
+				if (window.size() >= maxInFlight) {
+					drain(window.poll(), sink);
+				}
+				window.add(new InFlight<>(input, executor.submit(() -> worker.apply(input))));
+			}
+
+			while (!window.isEmpty()) {
+				drain(window.poll(), sink);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static <T, R> void drain(InFlight<T, R> inFlight, Sink<T, R> sink) throws IOException {
+		R result;
+		try {
+			result = inFlight.result.get();
+		} catch (ExecutionException e) {
+			Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for " + inFlight.input, e);
+		}
+
+		sink.accept(inFlight.input, result);
+	}
+
+	public interface Worker<T, R> {
+		R apply(T input) throws IOException;
+	}
+
+	public interface Sink<T, R> {
+		void accept(T input, R result) throws IOException;
+	}
+
+	private static final class InFlight<T, R> {
+		private final T input;
+		private final Future<R> result;
+
+		InFlight(T input, Future<R> result) {
+			this.input = input;
+			this.result = result;
+		}
+	}
+}
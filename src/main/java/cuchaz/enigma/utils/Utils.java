@@ -98,6 +98,19 @@ public class Utils {
 		return value == null ? defValue : Boolean.parseBoolean(value);
 	}
 
+	public static int getSystemPropertyAsInt(String property, int defValue) {
+		String value = System.getProperty(property);
+		if (value == null) {
+			return defValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("WARNING: Invalid value for " + property + ": " + value);
+			return defValue;
+		}
+	}
+
 	public static void delete(Path path) throws IOException {
 		if (path.toFile().exists()) {
 			for (Path p : Files.walk(path).sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
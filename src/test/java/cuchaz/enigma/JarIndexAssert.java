@@ -0,0 +1,59 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.index.EntryIndex;
+import cuchaz.enigma.analysis.index.InheritanceIndex;
+import cuchaz.enigma.analysis.index.JarIndex;
+import cuchaz.enigma.analysis.index.ReferenceIndex;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class JarIndexAssert {
+
+	public static void assertSameIndex(JarIndex expected, JarIndex actual) {
+		EntryIndex expectedEntries = expected.getEntryIndex();
+		EntryIndex actualEntries = actual.getEntryIndex();
+		assertSameElements(actualEntries.getClasses(), expectedEntries.getClasses());
+		assertSameElements(actualEntries.getMethods(), expectedEntries.getMethods());
+		assertSameElements(actualEntries.getFields(), expectedEntries.getFields());
+
+		InheritanceIndex expectedInheritance = expected.getInheritanceIndex();
+		InheritanceIndex actualInheritance = actual.getInheritanceIndex();
+		ReferenceIndex expectedReferences = expected.getReferenceIndex();
+		ReferenceIndex actualReferences = actual.getReferenceIndex();
+
+		for (ClassEntry entry : expectedEntries.getClasses()) {
+			assertThat(actualEntries.getClassAccess(entry), is(expectedEntries.getClassAccess(entry)));
+			assertSameElements(actualInheritance.getParents(entry), expectedInheritance.getParents(entry));
+			assertSameElements(actualInheritance.getChildren(entry), expectedInheritance.getChildren(entry));
+			assertSameElements(actualReferences.getReferencesToClass(entry), expectedReferences.getReferencesToClass(entry));
+			assertSameElements(actualReferences.getFieldTypeReferencesToClass(entry), expectedReferences.getFieldTypeReferencesToClass(entry));
+			assertSameElements(actualReferences.getMethodTypeReferencesToClass(entry), expectedReferences.getMethodTypeReferencesToClass(entry));
+			assertThat(actual.getPackageVisibilityIndex().getPartition(entry), is(expected.getPackageVisibilityIndex().getPartition(entry)));
+		}
+
+		for (MethodEntry entry : expectedEntries.getMethods()) {
+			assertThat(actualEntries.getMethodAccess(entry), is(expectedEntries.getMethodAccess(entry)));
+			assertSameElements(actualReferences.getMethodsReferencedBy(entry), expectedReferences.getMethodsReferencedBy(entry));
+			assertSameElements(actualReferences.getReferencesToMethod(entry), expectedReferences.getReferencesToMethod(entry));
+			assertThat(actual.getBridgeMethodIndex().isBridgeMethod(entry), is(expected.getBridgeMethodIndex().isBridgeMethod(entry)));
+		}
+
+		for (FieldEntry entry : expectedEntries.getFields()) {
+			assertThat(actualEntries.getFieldAccess(entry), is(expectedEntries.getFieldAccess(entry)));
+			assertSameElements(actualReferences.getReferencesToField(entry), expectedReferences.getReferencesToField(entry));
+		}
+
+		assertThat(actual.getBridgeMethodIndex().getSpecializedToBridge(), is(expected.getBridgeMethodIndex().getSpecializedToBridge()));
+	}
+
+	private static <T> void assertSameElements(Collection<T> actual, Collection<T> expected) {
+		assertThat(new HashSet<>(actual), is(new HashSet<>(expected)));
+	}
+}
@@ -0,0 +1,117 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.bytecode.translators.LocalVariableFixVisitor;
+import cuchaz.enigma.bytecode.translators.TranslationCache;
+import cuchaz.enigma.bytecode.translators.TranslationClassVisitor;
+import cuchaz.enigma.translation.Translator;
+import cuchaz.enigma.translation.mapping.serde.MappingFormat;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the throughput of remapping through {@link ClassNode} trees with remapping straight from the class reader
+ * into a class writer. Both paths parse every class from the same bytes on each pass, the way
+ * {@link cuchaz.enigma.analysis.ClassCache} parses and transforms classes, and both translate through a
+ * {@link TranslationCache} that starts out empty on each pass.
+ * <p>
+ * Usage: {@code RemapBenchmark <jar> [<mappings>] [<iterations>]}
+ */
+public class RemapBenchmark {
+	public static void main(String... args) throws Exception {
+		Path jarPath = Paths.get(args[0]);
+		Path mappingsPath = args.length > 1 ? Paths.get(args[1]) : null;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		Enigma enigma = Enigma.create();
+		EnigmaProject project = enigma.openJar(jarPath, ProgressListener.none());
+		if (mappingsPath != null) {
+			MappingFormat format = Files.isDirectory(mappingsPath) ? MappingFormat.ENIGMA_DIRECTORY : MappingFormat.ENIGMA_FILE;
+			project.setMappings(format.read(mappingsPath, ProgressListener.none(), enigma.getProfile().getMappingSaveParameters()));
+		}
+
+		// read the classes up front, so that neither path is measured reading the jar
+		List<byte[]> classes = readClasses(jarPath, project.getClassCache().getClassNames());
+		Translator deobfuscator = project.getMapper().getDeobfuscator();
+
+		// warm up both paths before measuring
+		for (int i = 0; i < 3; i++) {
+			remapNodes(classes, deobfuscator);
+			remapDirect(classes, deobfuscator);
+		}
+
+		long nodeBytes = 0;
+		long nodeNanos = 0;
+		long directBytes = 0;
+		long directNanos = 0;
+
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			nodeBytes += remapNodes(classes, deobfuscator);
+			nodeNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			directBytes += remapDirect(classes, deobfuscator);
+			directNanos += System.nanoTime() - start;
+		}
+
+		System.out.println(String.format(Locale.ROOT, "class node: %.2f MB/s", megabytesPerSecond(nodeBytes, nodeNanos)));
+		System.out.println(String.format(Locale.ROOT, "direct:     %.2f MB/s", megabytesPerSecond(directBytes, directNanos)));
+	}
+
+	private static List<byte[]> readClasses(Path jarPath, Collection<String> classNames) throws IOException {
+		List<byte[]> classes = new ArrayList<>(classNames.size());
+		try (FileSystem fileSystem = FileSystems.newFileSystem(jarPath, null)) {
+			for (String name : classNames) {
+				classes.add(Files.readAllBytes(fileSystem.getPath(name + ".class")));
+			}
+		}
+		return classes;
+	}
+
+	private static long remapNodes(List<byte[]> classes, Translator deobfuscator) {
+		TranslationCache translationCache = new TranslationCache(deobfuscator);
+
+		long bytes = 0;
+		for (byte[] bytecode : classes) {
+			ClassNode node = new ClassNode();
+			new ClassReader(bytecode).accept(new LocalVariableFixVisitor(Opcodes.ASM5, node), 0);
+
+			ClassNode translatedNode = new ClassNode();
+			node.accept(new TranslationClassVisitor(translationCache, Opcodes.ASM5, translatedNode));
+
+			ClassWriter writer = new ClassWriter(0);
+			translatedNode.accept(writer);
+			bytes += writer.toByteArray().length;
+		}
+		return bytes;
+	}
+
+	private static long remapDirect(List<byte[]> classes, Translator deobfuscator) {
+		TranslationCache translationCache = new TranslationCache(deobfuscator);
+
+		long bytes = 0;
+		for (byte[] bytecode : classes) {
+			ClassWriter writer = new ClassWriter(0);
+			new ClassReader(bytecode).accept(new LocalVariableFixVisitor(Opcodes.ASM5, new TranslationClassVisitor(translationCache, Opcodes.ASM5, writer)), 0);
+			bytes += writer.toByteArray().length;
+		}
+		return bytes;
+	}
+
+	private static double megabytesPerSecond(long bytes, long nanos) {
+		return (bytes / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+	}
+}
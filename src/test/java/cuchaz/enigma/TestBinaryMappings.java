@@ -0,0 +1,97 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.translation.mapping.AccessModifier;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingFileNameFormat;
+import cuchaz.enigma.translation.mapping.MappingSaveParameters;
+import cuchaz.enigma.translation.mapping.serde.MappingFormat;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class TestBinaryMappings {
+	private static final MappingSaveParameters PARAMETERS = new MappingSaveParameters(MappingFileNameFormat.BY_DEOBF);
+
+	@Test
+	public void roundTrip() throws Exception {
+		ClassEntry a = new ClassEntry("a");
+		ClassEntry inner = new ClassEntry(new ClassEntry("b"), "c");
+		MethodEntry method = new MethodEntry(a, "d", new MethodDescriptor("(ILb;)V"));
+
+		EntryTree<EntryMapping> mappings = new HashEntryTree<>();
+		mappings.insert(a, new EntryMapping("pkg/Alpha"));
+		mappings.insert(new FieldEntry(a, "b", new TypeDescriptor("Lb$c;")), new EntryMapping("inner", AccessModifier.PRIVATE));
+		mappings.insert(method, new EntryMapping("run", AccessModifier.PUBLIC));
+		mappings.insert(new LocalVariableEntry(method, 1, "", true), new EntryMapping("count"));
+		mappings.insert(new LocalVariableEntry(method, 2, "", true), new EntryMapping("été"));
+		mappings.insert(inner, new EntryMapping("Inner"));
+
+		Path path = Files.createTempFile("enigma-mappings", ".bin");
+		MappingFormat.BINARY_FILE.write(mappings, path, ProgressListener.none(), PARAMETERS);
+		EntryTree<EntryMapping> read = MappingFormat.BINARY_FILE.read(path, ProgressListener.none(), PARAMETERS);
+
+		assertThat(entries(read), is(entries(mappings)));
+		for (Entry<?> entry : entries(mappings)) {
+			assertThat(read.get(entry), is(mappings.get(entry)));
+		}
+		assertThat(read.get(new ClassEntry("b")), nullValue());
+	}
+
+	@Test
+	public void truncatedFile() throws Exception {
+		EntryTree<EntryMapping> mappings = new HashEntryTree<>();
+		mappings.insert(new ClassEntry("a"), new EntryMapping("pkg/Alpha"));
+
+		Path path = Files.createTempFile("enigma-mappings", ".bin");
+		MappingFormat.BINARY_FILE.write(mappings, path, ProgressListener.none(), PARAMETERS);
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+
+		try {
+			MappingFormat.BINARY_FILE.read(path, ProgressListener.none(), PARAMETERS);
+			fail("Expected a truncated file to be rejected");
+		} catch (IOException expected) {
+		}
+	}
+
+	@Test
+	public void deeplyNestedFile() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(new byte[]{'E', 'N', 'M', 'B', 1});
+		// a single string "a", and a single root
+		bytes.write(new byte[]{1, 1, 'a', 1});
+		for (int i = 0; i < 100_000; i++) {
+			// an unmapped class named "a" with one child
+			bytes.write(new byte[]{0, 0, 1});
+		}
+
+		Path path = Files.createTempFile("enigma-mappings", ".bin");
+		Files.write(path, bytes.toByteArray());
+
+		try {
+			MappingFormat.BINARY_FILE.read(path, ProgressListener.none(), PARAMETERS);
+			fail("Expected a corrupt file to be rejected");
+		} catch (IOException expected) {
+		}
+	}
+
+	private static Set<Entry<?>> entries(EntryTree<EntryMapping> mappings) {
+		return mappings.getAllEntries().collect(Collectors.toSet());
+	}
+}
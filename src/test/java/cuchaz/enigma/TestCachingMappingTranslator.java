@@ -0,0 +1,46 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.translation.CachingMappingTranslator;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.VoidEntryResolver;
+import cuchaz.enigma.translation.mapping.tree.DeltaTrackingTree;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TestCachingMappingTranslator {
+
+	@Test
+	public void renamesInvalidateDependents() {
+		DeltaTrackingTree<EntryMapping> mappings = new DeltaTrackingTree<>();
+		CachingMappingTranslator translator = new CachingMappingTranslator(mappings, VoidEntryResolver.INSTANCE);
+		mappings.addChangeListener(translator::invalidate);
+
+		mappings.insert(new ClassEntry("a"), new EntryMapping("Foo"));
+
+		MethodEntry method = MethodEntry.parse("b", "m", "(La;)V");
+		FieldEntry field = FieldEntry.parse("c", "f", "I");
+		assertThat(translator.translate(method), is(MethodEntry.parse("b", "m", "(LFoo;)V")));
+		assertThat(translator.translate(field), is(field));
+		assertThat(translator.translate(method), is(MethodEntry.parse("b", "m", "(LFoo;)V")));
+		assertThat(translator.getCacheStats().hitCount(), is(1L));
+
+		long cached = translator.size();
+		mappings.insert(new ClassEntry("a"), new EntryMapping("Bar"));
+
+		// only the method depended on the class mapping
+		assertThat(translator.size(), is(cached - 2));
+		assertThat(translator.translate(field), is(field));
+		assertThat(translator.translate(method), is(MethodEntry.parse("b", "m", "(LBar;)V")));
+
+		mappings.insert(new ClassEntry("c"), new EntryMapping("Baz"));
+		assertThat(translator.translate(field), is(FieldEntry.parse("Baz", "f", "I")));
+
+		mappings.remove(new ClassEntry("a"));
+		assertThat(translator.translate(method), is(method));
+	}
+}
@@ -0,0 +1,112 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.ClassCache;
+import org.junit.Test;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.util.Textifier;
+import org.objectweb.asm.util.TraceClassVisitor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class TestClassCacheVisitors {
+
+	@Test
+	public void visitParallel() throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get("build/test-obf/translation.jar"))) {
+			AtomicInteger suppliedVisitors = new AtomicInteger();
+			Set<String> visitedClasses = ConcurrentHashMap.newKeySet();
+
+			classCache.visitParallel(() -> {
+				suppliedVisitors.incrementAndGet();
+				return new ClassVisitor(Opcodes.ASM7) {
+					@Override
+					public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+						assertThat(visitedClasses.add(name), is(true));
+					}
+				};
+			}, 0);
+
+			assertThat(suppliedVisitors.get(), is(classCache.getClassCount()));
+			assertThat(visitedClasses, is(classCache.getClassNames()));
+		}
+	}
+
+	@Test
+	public void visitParallelPropagatesExceptions() throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get("build/test-obf/translation.jar"))) {
+			try {
+				classCache.visitParallel(() -> new ClassVisitor(Opcodes.ASM7) {
+					@Override
+					public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+						throw new IllegalStateException(name);
+					}
+				}, 0);
+				fail("Expected the visitor's exception to propagate");
+			} catch (IllegalStateException expected) {
+			}
+		}
+	}
+
+	@Test
+	public void visitCombinedInheritanceTree() throws Exception {
+		assertSameEvents("build/test-obf/inheritanceTree.jar");
+	}
+
+	@Test
+	public void visitCombinedTranslation() throws Exception {
+		assertSameEvents("build/test-obf/translation.jar");
+	}
+
+	@Test
+	public void visitCombinedInnerClasses() throws Exception {
+		assertSameEvents("build/test-obf/innerClasses.jar");
+	}
+
+	@Test
+	public void visitCombinedWithoutVisitors() throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get("build/test-obf/translation.jar"))) {
+			classCache.visitCombined(Arrays.asList(() -> null, () -> null), 0);
+		}
+	}
+
+	private static void assertSameEvents(String path) throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get(path))) {
+			List<String> separate = new ArrayList<>();
+			classCache.visit(tracer(separate), 0);
+
+			List<String> first = new ArrayList<>();
+			List<String> second = new ArrayList<>();
+			classCache.visitCombined(Arrays.asList(tracer(first), () -> null, tracer(second)), 0);
+
+			assertThat(first, is(separate));
+			assertThat(second, is(separate));
+		}
+	}
+
+	/**
+	 * Prints every event of a class, and adds the text to the given list once the class has been visited.
+	 */
+	private static Supplier<ClassVisitor> tracer(List<String> texts) {
+		return () -> {
+			StringWriter text = new StringWriter();
+			return new TraceClassVisitor(null, new Textifier(), new PrintWriter(text)) {
+				@Override
+				public void visitEnd() {
+					super.visitEnd();
+					texts.add(text.toString());
+				}
+			};
+		};
+	}
+}
@@ -0,0 +1,48 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.ClassCache;
+import cuchaz.enigma.analysis.index.JarIndex;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+public class TestCompactReferenceIndex {
+
+	@Test
+	public void inheritanceTree() throws Exception {
+		assertSameIndex("build/test-obf/inheritanceTree.jar");
+	}
+
+	@Test
+	public void constructors() throws Exception {
+		assertSameIndex("build/test-obf/constructors.jar");
+	}
+
+	@Test
+	public void translation() throws Exception {
+		assertSameIndex("build/test-obf/translation.jar");
+	}
+
+	@Test
+	public void packageAccess() throws Exception {
+		assertSameIndex("build/test-obf/packageAccess.jar");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void compactedIndexIsReadOnly() throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get("build/test-obf/translation.jar"))) {
+			JarIndex index = classCache.index(ProgressListener.none(), false);
+			index.getReferenceIndex().compact();
+			index.getReferenceIndex().processIndex(index);
+		}
+	}
+
+	private static void assertSameIndex(String path) throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get(path))) {
+			JarIndex expected = classCache.index(ProgressListener.none(), false);
+			JarIndex compacted = classCache.index(ProgressListener.none(), false);
+			compacted.getReferenceIndex().compact();
+			JarIndexAssert.assertSameIndex(expected, compacted);
+		}
+	}
+}
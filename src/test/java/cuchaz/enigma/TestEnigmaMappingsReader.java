@@ -0,0 +1,64 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.throwables.MappingParseException;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingFileNameFormat;
+import cuchaz.enigma.translation.mapping.MappingSaveParameters;
+import cuchaz.enigma.translation.mapping.serde.MappingFormat;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class TestEnigmaMappingsReader {
+	private static final MappingSaveParameters PARAMETERS = new MappingSaveParameters(MappingFileNameFormat.BY_DEOBF);
+
+	@Test
+	public void directory() throws Exception {
+		Path root = Files.createTempDirectory("enigma-mappings");
+		write(root.resolve("a/A.mapping"), "CLASS a pkg/Alpha # comment\r\n\tFIELD b count I\r\n\tMETHOD c run ()V\r\n\t\tARG 1 value\r\n");
+		write(root.resolve("b/B.mapping"), "CLASS b pkg/Beta\n\n\tCLASS c Inner\n\t\tMETHOD d (I)V\n");
+		write(root.resolve("a/A2.mapping"), "CLASS a\n\tMETHOD e compute ()I\n");
+
+		EntryTree<EntryMapping> mappings = MappingFormat.ENIGMA_DIRECTORY.read(root, ProgressListener.none(), PARAMETERS);
+
+		ClassEntry a = new ClassEntry("a");
+		ClassEntry b = new ClassEntry("b");
+		assertThat(mappings.get(a).getTargetName(), is("pkg/Alpha"));
+		assertThat(mappings.get(new FieldEntry(a, "b", new TypeDescriptor("I"))).getTargetName(), is("count"));
+		assertThat(mappings.get(new MethodEntry(a, "c", new MethodDescriptor("()V"))).getTargetName(), is("run"));
+		assertThat(mappings.get(new MethodEntry(a, "e", new MethodDescriptor("()I"))).getTargetName(), is("compute"));
+		assertThat(mappings.get(b).getTargetName(), is("pkg/Beta"));
+		assertThat(mappings.get(new ClassEntry(b, "c")).getTargetName(), is("Inner"));
+		assertThat(mappings.get(new MethodEntry(new ClassEntry(b, "c"), "d", new MethodDescriptor("(I)V"))), nullValue());
+	}
+
+	@Test
+	public void parseErrorLine() throws Exception {
+		Path root = Files.createTempDirectory("enigma-mappings");
+		write(root.resolve("A.mapping"), "CLASS a\n# comment\n\tBOGUS b\n");
+
+		try {
+			MappingFormat.ENIGMA_DIRECTORY.read(root, ProgressListener.none(), PARAMETERS);
+			fail("Expected a parse error");
+		} catch (MappingParseException e) {
+			assertThat(e.getMessage(), startsWith("Line 2: "));
+		}
+	}
+
+	private static void write(Path path, String contents) throws Exception {
+		Files.createDirectories(path.getParent());
+		Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,40 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.translation.representation.AccessFlags;
+import cuchaz.enigma.translation.representation.Signature;
+import cuchaz.enigma.translation.representation.entry.*;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestEntryInterner {
+
+	@Test
+	public void classes() {
+		ClassEntry inner = EntryInterner.classEntry("a/b/Outer$Inner");
+		assertThat(EntryInterner.classEntry("a/b/Outer$Inner"), is(sameInstance(inner)));
+		assertThat(inner.getOuterClass(), is(sameInstance(EntryInterner.classEntry("a/b/Outer"))));
+		assertThat(EntryInterner.intern(new ClassEntry("a/b/Outer$Inner")), is(sameInstance(inner)));
+		assertThat(inner, is(new ClassEntry("a/b/Outer$Inner")));
+	}
+
+	@Test
+	public void members() {
+		MethodEntry method = MethodEntry.parse("a/b/Owner", "m", "(Ljava/lang/String;I)V");
+		assertThat(MethodEntry.parse("a/b/Owner", "m", "(Ljava/lang/String;I)V"), is(sameInstance(method)));
+		assertThat(method.getParent(), is(sameInstance(EntryInterner.classEntry("a/b/Owner"))));
+		assertThat(method.getDesc(), is(sameInstance(EntryInterner.methodDescriptor("(Ljava/lang/String;I)V"))));
+
+		FieldEntry field = FieldEntry.parse("a/b/Owner", "f", "I");
+		assertThat(FieldEntry.parse("a/b/Owner", "f", "I"), is(sameInstance(field)));
+		assertThat(FieldEntry.parse("a/b/Owner", "f", "J"), is(not(field)));
+	}
+
+	@Test
+	public void definitionsAreNotInterned() {
+		ClassDefEntry definition = new ClassDefEntry("a/b/Defined", Signature.createSignature(null), new AccessFlags(0), null, null);
+		assertThat(EntryInterner.intern(definition), is(sameInstance(definition)));
+		assertThat(EntryInterner.classEntry("a/b/Defined"), is(not(instanceOf(ClassDefEntry.class))));
+	}
+}
@@ -0,0 +1,107 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingDelta;
+import cuchaz.enigma.translation.mapping.MappingFileNameFormat;
+import cuchaz.enigma.translation.mapping.MappingSaveParameters;
+import cuchaz.enigma.translation.mapping.serde.MappingFormat;
+import cuchaz.enigma.translation.mapping.serde.MappingsWriter;
+import cuchaz.enigma.translation.mapping.serde.TinyMappingsWriter;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.Entry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class TestIncrementalMappingsWriter {
+	private static final MappingSaveParameters PARAMETERS = new MappingSaveParameters(MappingFileNameFormat.BY_DEOBF);
+
+	private static final ClassEntry A = new ClassEntry("a");
+	private static final ClassEntry B = new ClassEntry("b");
+
+	@Test
+	public void enigmaFile() throws Exception {
+		assertIncrementalSave(MappingFormat.ENIGMA_FILE.getWriter());
+	}
+
+	@Test
+	public void srgFile() throws Exception {
+		assertIncrementalSave(MappingFormat.SRG_FILE.getWriter());
+	}
+
+	@Test
+	public void tinyFile() throws Exception {
+		assertIncrementalSave(new TinyMappingsWriter("obf", "deobf"));
+	}
+
+	@Test
+	public void unchangedBlocksAreReused() throws Exception {
+		MappingsWriter writer = new TinyMappingsWriter("obf", "deobf");
+		EntryTree<EntryMapping> mappings = createMappings();
+		Path path = Files.createTempFile("enigma-mappings", ".tiny");
+		writer.write(mappings, path, ProgressListener.none(), PARAMETERS);
+
+		// a change no delta records is only picked up once its root is rendered again
+		mappings.insert(A, new EntryMapping("pkg/Unrecorded"));
+		mappings.insert(B, new EntryMapping("pkg/Renamed"));
+		writer.write(mappings, deltaOf(mappings, B), path, ProgressListener.none(), PARAMETERS);
+
+		String contents = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		assertThat(contents, containsString("pkg/Alpha"));
+		assertThat(contents, containsString("pkg/Renamed"));
+		assertThat(contents, not(containsString("pkg/Unrecorded")));
+		assertThat(contents, not(containsString("pkg/Beta")));
+	}
+
+	@Test
+	public void externallyModifiedFile() throws Exception {
+		EntryTree<EntryMapping> mappings = createMappings();
+		Path path = Files.createTempFile("enigma-mappings", ".mapping");
+		MappingFormat.ENIGMA_FILE.write(mappings, path, ProgressListener.none(), PARAMETERS);
+		byte[] expected = Files.readAllBytes(path);
+
+		Files.write(path, "CLASS c d\n".getBytes(StandardCharsets.UTF_8));
+		MappingFormat.ENIGMA_FILE.write(mappings, new MappingDelta<>(mappings), path, ProgressListener.none(), PARAMETERS);
+
+		assertThat(Files.readAllBytes(path), is(expected));
+	}
+
+	private static void assertIncrementalSave(MappingsWriter writer) throws Exception {
+		EntryTree<EntryMapping> mappings = createMappings();
+		Path path = Files.createTempFile("enigma-mappings", ".mapping");
+		writer.write(mappings, path, ProgressListener.none(), PARAMETERS);
+
+		mappings.insert(B, new EntryMapping("pkg/Renamed"));
+		writer.write(mappings, deltaOf(mappings, B), path, ProgressListener.none(), PARAMETERS);
+
+		Path fullPath = Files.createTempFile("enigma-mappings", ".mapping");
+		writer.write(mappings, fullPath, ProgressListener.none(), PARAMETERS);
+
+		assertThat(new String(Files.readAllBytes(path), StandardCharsets.UTF_8), is(new String(Files.readAllBytes(fullPath), StandardCharsets.UTF_8)));
+	}
+
+	private static MappingDelta<EntryMapping> deltaOf(EntryTree<EntryMapping> mappings, Entry<?> root) {
+		HashEntryTree<Object> changes = new HashEntryTree<>();
+		changes.insert(root, MappingDelta.PLACEHOLDER);
+		return new MappingDelta<>(mappings, changes);
+	}
+
+	private static EntryTree<EntryMapping> createMappings() {
+		EntryTree<EntryMapping> mappings = new HashEntryTree<>();
+		mappings.insert(A, new EntryMapping("pkg/Alpha"));
+		mappings.insert(new FieldEntry(A, "c", new TypeDescriptor("Lb;")), new EntryMapping("beta"));
+		mappings.insert(B, new EntryMapping("pkg/Beta"));
+		return mappings;
+	}
+}
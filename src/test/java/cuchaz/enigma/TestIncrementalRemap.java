@@ -0,0 +1,97 @@
+package cuchaz.enigma;
+
+import com.strobel.decompiler.languages.java.ast.CompilationUnit;
+import cuchaz.enigma.analysis.SourceIndex;
+import cuchaz.enigma.analysis.Token;
+import cuchaz.enigma.gui.DecompiledClassSource;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.EntryRemapper;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.Entry;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cuchaz.enigma.TestEntryFactory.newClass;
+import static cuchaz.enigma.TestEntryFactory.newMethod;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TestIncrementalRemap {
+
+	@Test
+	public void matchesFullRemap() throws Exception {
+		EnigmaProject project = Enigma.create().openJar(Paths.get("build/test-obf/constructors.jar"), ProgressListener.none());
+		EntryRemapper mapper = project.getMapper();
+
+		List<Entry<?>> changes = new ArrayList<>();
+		mapper.getObfToDeobf().addChangeListener(changes::add);
+
+		CompiledSourceTypeLoader typeLoader = new CompiledSourceTypeLoader(project.getClassCache());
+		SourceProvider sourceProvider = new SourceProvider(SourceProvider.createSettings(), typeLoader);
+
+		// the caller references every constructor, the subclass calls them through this and super
+		List<DecompiledClassSource> sources = new ArrayList<>();
+		for (ClassEntry classEntry : new ClassEntry[]{newClass("b"), newClass("d")}) {
+			DecompiledClassSource source = new DecompiledClassSource(classEntry, decompile(project, sourceProvider, classEntry));
+			source.remapSource(project, mapper.getDeobfuscator());
+			sources.add(source);
+		}
+
+		// a class, a method, and a class whose constructors are referenced
+		rename(project, sources, changes, newClass("b"), "Caller");
+		rename(project, sources, changes, newMethod("b", "a", "()V"), "callBaseDefault");
+		rename(project, sources, changes, newClass("d"), "SubClass");
+
+		// removing a mapping goes through the same path
+		rename(project, sources, changes, newClass("d"), null);
+	}
+
+	private static void rename(EnigmaProject project, List<DecompiledClassSource> sources, List<Entry<?>> changes, Entry<?> entry, @Nullable String name) {
+		EntryRemapper mapper = project.getMapper();
+
+		changes.clear();
+		mapper.mapFromObf(entry, name != null ? new EntryMapping(name) : null);
+
+		for (DecompiledClassSource incremental : sources) {
+			incremental.remapSource(project, mapper.getDeobfuscator(), changes);
+
+			DecompiledClassSource full = new DecompiledClassSource(incremental.getEntry(), incremental.getObfuscatedIndex());
+			full.remapSource(project, mapper.getDeobfuscator());
+
+			assertThat(incremental.getIndex().getSource(), is(full.getIndex().getSource()));
+			assertThat(tokens(incremental.getIndex()), is(tokens(full.getIndex())));
+			assertThat(incremental.getHighlightedTokens(), is(full.getHighlightedTokens()));
+		}
+	}
+
+	private static SourceIndex decompile(EnigmaProject project, SourceProvider sourceProvider, ClassEntry classEntry) {
+		CompilationUnit tree = sourceProvider.getSources(classEntry.getFullName());
+		String source = sourceProvider.writeSourceToString(tree);
+
+		SourceIndex index = SourceIndex.buildIndex(source, tree, true);
+		index.resolveReferences(project.getMapper().getObfResolver());
+		return index;
+	}
+
+	/**
+	 * Lists the range and the text of every reference and declaration token, sorted so that indexes can be compared.
+	 */
+	private static List<String> tokens(SourceIndex index) {
+		String source = index.getSource();
+
+		List<String> tokens = new ArrayList<>();
+		for (Token token : index.referenceTokens()) {
+			tokens.add(token + " " + source.substring(token.start, token.end) + " -> " + index.getReference(token));
+		}
+		for (Entry<?> entry : index.declarations()) {
+			Token token = index.getDeclarationToken(entry);
+			tokens.add(entry + " declared at " + token + " " + source.substring(token.start, token.end));
+		}
+		tokens.sort(null);
+		return tokens;
+	}
+}
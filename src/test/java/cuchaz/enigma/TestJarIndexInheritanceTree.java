@@ -18,9 +18,11 @@ import cuchaz.enigma.analysis.index.InheritanceIndex;
 import cuchaz.enigma.analysis.index.JarIndex;
 import cuchaz.enigma.translation.mapping.EntryResolver;
 import cuchaz.enigma.translation.mapping.IndexEntryResolver;
+import cuchaz.enigma.translation.mapping.ResolutionStrategy;
 import cuchaz.enigma.translation.representation.AccessFlags;
 import cuchaz.enigma.translation.representation.entry.ClassEntry;
 import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.LocalVariableEntry;
 import cuchaz.enigma.translation.representation.entry.MethodDefEntry;
 import cuchaz.enigma.translation.representation.entry.MethodEntry;
 import org.junit.Test;
@@ -84,6 +86,20 @@ public class TestJarIndexInheritanceTree {
 		assertThat(index.getChildren(subClassB), is(empty()));
 	}
 
+	@Test
+	public void transitiveInheritance() {
+		InheritanceIndex index = this.index.getInheritanceIndex();
+
+		assertThat(index.getDescendants(baseClass), containsInAnyOrder(subClassA, subClassAA, subClassB));
+		assertThat(index.getDescendants(subClassA), containsInAnyOrder(subClassAA));
+		assertThat(index.getDescendants(subClassB), is(empty()));
+
+		assertThat(index.isAncestor(subClassAA, baseClass), is(true));
+		assertThat(index.isAncestor(subClassAA, subClassA), is(true));
+		assertThat(index.isAncestor(subClassB, subClassA), is(false));
+		assertThat(index.isAncestor(baseClass, subClassA), is(false));
+	}
+
 	@Test
 	public void access() {
 		assertThat(index.getEntryIndex().getFieldAccess(nameField), is(new AccessFlags(Opcodes.ACC_PRIVATE)));
@@ -133,6 +149,27 @@ public class TestJarIndexInheritanceTree {
 		assertThat(entries, containsInAnyOrder(newMethod(subClassB, "b", "()V")));
 	}
 
+	@Test
+	public void resolveLocalVariables() {
+		EntryResolver resolver = new IndexEntryResolver(index);
+		MethodEntry overridden = newMethod(subClassAA, "a", "()V");
+		MethodEntry root = newMethod(baseClass, "a", "()V");
+
+		// equal locals with different names must not share a resolution
+		for (ResolutionStrategy strategy : ResolutionStrategy.values()) {
+			LocalVariableEntry first = new LocalVariableEntry(overridden, 1, "first", false);
+			LocalVariableEntry second = new LocalVariableEntry(overridden, 1, "second", false);
+
+			assertThat(resolver.resolveFirstEntry(first, strategy).getName(), is("first"));
+			assertThat(resolver.resolveFirstEntry(second, strategy).getName(), is("second"));
+		}
+
+		LocalVariableEntry resolved = resolver.resolveFirstEntry(new LocalVariableEntry(overridden, 1, "third", true), ResolutionStrategy.RESOLVE_ROOT);
+		assertThat(resolved.getParent(), is(root));
+		assertThat(resolved.getName(), is("third"));
+		assertThat(resolved.isArgument(), is(true));
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void fieldReferences() {
@@ -0,0 +1,38 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.ClassCache;
+import cuchaz.enigma.analysis.index.JarIndex;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+public class TestJarIndexParallel {
+
+	@Test
+	public void inheritanceTree() throws Exception {
+		assertSameIndex("build/test-obf/inheritanceTree.jar");
+	}
+
+	@Test
+	public void constructors() throws Exception {
+		assertSameIndex("build/test-obf/constructors.jar");
+	}
+
+	@Test
+	public void translation() throws Exception {
+		assertSameIndex("build/test-obf/translation.jar");
+	}
+
+	@Test
+	public void packageAccess() throws Exception {
+		assertSameIndex("build/test-obf/packageAccess.jar");
+	}
+
+	private static void assertSameIndex(String path) throws Exception {
+		try (ClassCache classCache = ClassCache.of(Paths.get(path))) {
+			JarIndex sequential = classCache.index(ProgressListener.none(), false);
+			JarIndex parallel = classCache.index(ProgressListener.none(), true);
+			JarIndexAssert.assertSameIndex(sequential, parallel);
+		}
+	}
+}
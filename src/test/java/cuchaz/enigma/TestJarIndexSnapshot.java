@@ -0,0 +1,60 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.ClassCache;
+import cuchaz.enigma.analysis.index.JarIndex;
+import cuchaz.enigma.analysis.index.JarIndexSnapshot;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TestJarIndexSnapshot {
+
+	@Test
+	public void inheritanceTree() throws Exception {
+		assertRoundTrip("build/test-obf/inheritanceTree.jar");
+	}
+
+	@Test
+	public void translation() throws Exception {
+		assertRoundTrip("build/test-obf/translation.jar");
+	}
+
+	@Test
+	public void packageAccess() throws Exception {
+		assertRoundTrip("build/test-obf/packageAccess.jar");
+	}
+
+	@Test
+	public void innerClasses() throws Exception {
+		assertRoundTrip("build/test-obf/innerClasses.jar");
+	}
+
+	@Test
+	public void missingSnapshot() throws Exception {
+		Path directory = Files.createTempDirectory("enigma-index");
+		Path snapshotPath = JarIndexSnapshot.resolve(directory, Paths.get("build/test-obf/loneClass.jar"));
+		assertThat(JarIndexSnapshot.read(snapshotPath), nullValue());
+	}
+
+	private static void assertRoundTrip(String path) throws Exception {
+		Path jarPath = Paths.get(path);
+		Path snapshotPath = JarIndexSnapshot.resolve(Files.createTempDirectory("enigma-index"), jarPath);
+
+		try (ClassCache classCache = ClassCache.of(jarPath)) {
+			JarIndex index = classCache.index(ProgressListener.none());
+			JarIndexSnapshot.write(index, snapshotPath);
+
+			JarIndex restored = JarIndexSnapshot.read(snapshotPath);
+			assertThat(restored, notNullValue());
+			JarIndexAssert.assertSameIndex(index, restored);
+		} finally {
+			Files.deleteIfExists(snapshotPath);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.analysis.ClassCache;
+import cuchaz.enigma.analysis.index.JarIndex;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.MappingDelta;
+import cuchaz.enigma.translation.mapping.MappingsChecker;
+import cuchaz.enigma.translation.mapping.ResolutionStrategy;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.EntryTreeNode;
+import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.Entry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+import static cuchaz.enigma.TestEntryFactory.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestMappingsChecker {
+
+	private final JarIndex index;
+
+	private final ClassEntry baseClass = newClass("a");
+	private final ClassEntry subClassA = newClass("b");
+	private final ClassEntry subClassB = newClass("c");
+
+	private final FieldEntry nameField = newField(baseClass, "a", "Ljava/lang/String;");
+	private final FieldEntry missingBaseField = newField(baseClass, "z", "I");
+	private final FieldEntry missingSubField = newField(subClassA, "z", "I");
+	// overrides a.a()V, so it doesn't resolve to itself
+	private final MethodEntry overridingMethod = newMethod(subClassB, "a", "()V");
+	private final MethodEntry bThingsMethod = newMethod(subClassB, "b", "()V");
+
+	public TestMappingsChecker() throws Exception {
+		ClassCache classCache = ClassCache.of(Paths.get("build/test-obf/inheritanceTree.jar"));
+		index = classCache.index(ProgressListener.none());
+	}
+
+	@Test
+	public void parallelMatchesSerial() {
+		EntryTree<EntryMapping> mappings = createMappings();
+
+		// a straight serial pass over every mapped entry, checking it against the index the way the checker should
+		Map<Entry<?>, String> expected = new HashMap<>();
+		for (EntryTreeNode<EntryMapping> node : mappings) {
+			Entry<?> entry = node.getEntry();
+			if (node.hasValue() && isBroken(entry)) {
+				expected.put(entry, node.getValue().getTargetName());
+			}
+		}
+		assertThat(expected.keySet(), containsInAnyOrder(missingBaseField, missingSubField, overridingMethod));
+
+		Map<Entry<?>, String> dropped = new MappingsChecker(index, mappings).dropBrokenMappings(ProgressListener.none()).getDroppedMappings();
+
+		assertThat(dropped, is(expected));
+		assertThat(mappedEntries(mappings).keySet(), containsInAnyOrder(baseClass, nameField, subClassA, subClassB, bThingsMethod));
+	}
+
+	@Test
+	public void deltaOnlyChecksChangedRoots() {
+		EntryTree<EntryMapping> mappings = createMappings();
+		MappingsChecker checker = new MappingsChecker(index, mappings);
+
+		Map<Entry<?>, String> dropped = checker.dropBrokenMappings(deltaOf(mappings, subClassA), ProgressListener.none()).getDroppedMappings();
+
+		assertThat(dropped.keySet(), contains(missingSubField));
+		assertThat(mappings.get(missingSubField), is(nullValue()));
+		assertThat(mappings.get(missingBaseField), is(notNullValue()));
+		assertThat(mappings.get(overridingMethod), is(notNullValue()));
+	}
+
+	@Test
+	public void changedClassChecksDescendants() {
+		EntryTree<EntryMapping> mappings = createMappings();
+		MappingsChecker checker = new MappingsChecker(index, mappings);
+
+		Map<Entry<?>, String> dropped = checker.dropBrokenMappings(Collections.singleton(baseClass), ProgressListener.none()).getDroppedMappings();
+
+		assertThat(dropped.keySet(), containsInAnyOrder(missingBaseField, missingSubField, overridingMethod));
+		assertThat(mappings.get(nameField), is(notNullValue()));
+		assertThat(mappings.get(bThingsMethod), is(notNullValue()));
+	}
+
+	@Test
+	public void changedLeafClassOnlyChecksItself() {
+		EntryTree<EntryMapping> mappings = createMappings();
+		MappingsChecker checker = new MappingsChecker(index, mappings);
+
+		Map<Entry<?>, String> dropped = checker.dropBrokenMappings(Collections.singleton(subClassB), ProgressListener.none()).getDroppedMappings();
+
+		assertThat(dropped.keySet(), contains(overridingMethod));
+		assertThat(mappings.get(missingBaseField), is(notNullValue()));
+		assertThat(mappings.get(missingSubField), is(notNullValue()));
+	}
+
+	private EntryTree<EntryMapping> createMappings() {
+		EntryTree<EntryMapping> mappings = new HashEntryTree<>();
+		mappings.insert(baseClass, new EntryMapping("Base"));
+		mappings.insert(nameField, new EntryMapping("name"));
+		mappings.insert(missingBaseField, new EntryMapping("missing"));
+		mappings.insert(subClassA, new EntryMapping("SubA"));
+		mappings.insert(missingSubField, new EntryMapping("gone"));
+		mappings.insert(subClassB, new EntryMapping("SubB"));
+		mappings.insert(overridingMethod, new EntryMapping("doBaseThings"));
+		mappings.insert(bThingsMethod, new EntryMapping("doBThings"));
+		return mappings;
+	}
+
+	private boolean isBroken(Entry<?> entry) {
+		if (!index.getEntryIndex().hasEntry(entry)) {
+			return true;
+		}
+		return !index.getEntryResolver().resolveEntry(entry, ResolutionStrategy.RESOLVE_ROOT).contains(entry);
+	}
+
+	private static MappingDelta<EntryMapping> deltaOf(EntryTree<EntryMapping> mappings, Entry<?> root) {
+		EntryTree<Object> changes = new HashEntryTree<>();
+		changes.insert(root, MappingDelta.PLACEHOLDER);
+		return new MappingDelta<>(mappings, changes);
+	}
+
+	private static Map<Entry<?>, EntryMapping> mappedEntries(EntryTree<EntryMapping> mappings) {
+		Map<Entry<?>, EntryMapping> entries = new HashMap<>();
+		for (EntryTreeNode<EntryMapping> node : mappings) {
+			if (node.hasValue()) {
+				entries.put(node.getEntry(), node.getValue());
+			}
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,107 @@
+package cuchaz.enigma;
+
+import cuchaz.enigma.bytecode.translators.TranslationCache;
+import cuchaz.enigma.translation.MappingTranslator;
+import cuchaz.enigma.translation.Translator;
+import cuchaz.enigma.translation.mapping.EntryMapping;
+import cuchaz.enigma.translation.mapping.VoidEntryResolver;
+import cuchaz.enigma.translation.mapping.tree.EntryTree;
+import cuchaz.enigma.translation.mapping.tree.HashEntryTree;
+import cuchaz.enigma.translation.representation.MethodDescriptor;
+import cuchaz.enigma.translation.representation.Signature;
+import cuchaz.enigma.translation.representation.TypeDescriptor;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import cuchaz.enigma.translation.representation.entry.FieldEntry;
+import cuchaz.enigma.translation.representation.entry.MethodEntry;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestTranslationCache {
+	private static final String[] CLASSES = {"a", "a$b", "c", "d", "java/lang/String"};
+	private static final String[] TYPE_DESCS = {"I", "La;", "[[La;", "La$b;", "Ld;", "Ljava/lang/String;"};
+	private static final String[] METHOD_DESCS = {"()V", "(La;[Lc;I)La;", "(La$b;J)[Lc;", "(Ljava/lang/Object;)Ljava/lang/String;"};
+	private static final String[] SIGNATURES = {
+			null,
+			"",
+			"La;",
+			"TT;",
+			"Ljava/util/List<La;>;",
+			"Ljava/util/Map<La;+[Lc;>;",
+			"La<TT;>.b<*>;",
+			"Ljava/util/Map<-La$b;Ljava/util/List<Ld;>;>;"
+	};
+
+	private final Translator translator = new MappingTranslator(createMappings(), VoidEntryResolver.INSTANCE);
+
+	@Test
+	public void classes() {
+		TranslationCache cache = new TranslationCache(translator);
+		for (String name : CLASSES) {
+			String expected = translator.translate(new ClassEntry(name)).getFullName();
+			assertThat(cache.translateClass(name), is(expected));
+			assertThat(cache.translateClass(name), is(expected));
+		}
+		assertThat(cache.translateClass("a"), is("pkg/Foo"));
+	}
+
+	@Test
+	public void descriptors() {
+		TranslationCache cache = new TranslationCache(translator);
+		for (String desc : TYPE_DESCS) {
+			String expected = translator.translate(new TypeDescriptor(desc)).toString();
+			assertThat(cache.translateTypeDesc(desc), is(expected));
+			assertThat(cache.translateTypeDesc(desc), is(expected));
+		}
+		for (String desc : METHOD_DESCS) {
+			String expected = translator.translate(new MethodDescriptor(desc)).toString();
+			assertThat(cache.translateMethodDesc(desc), is(expected));
+			assertThat(cache.translateMethodDesc(desc), is(expected));
+		}
+		assertThat(cache.translateMethodDesc("(La;[Lc;I)La;"), is("(Lpkg/Foo;[LBar;I)Lpkg/Foo;"));
+	}
+
+	@Test
+	public void signatures() {
+		TranslationCache cache = new TranslationCache(translator);
+		for (String signature : SIGNATURES) {
+			String expected = translator.translate(Signature.createTypedSignature(signature)).toString();
+			assertThat(signature, cache.translateTypeSignature(signature), is(expected));
+			assertThat(signature, cache.translateTypeSignature(signature), is(expected));
+		}
+		assertThat(cache.translateTypeSignature(null), is(nullValue()));
+		assertThat(cache.translateTypeSignature(""), is(nullValue()));
+		assertThat(cache.translateTypeSignature("Ljava/util/List<La;>;"), is("Ljava/util/List<Lpkg/Foo;>;"));
+	}
+
+	@Test
+	public void members() {
+		TranslationCache cache = new TranslationCache(translator);
+
+		FieldEntry field = new FieldEntry(new ClassEntry("a"), "f", new TypeDescriptor("Lc;"));
+		assertThat(cache.translateField("a", "f", "Lc;"), is(translator.translate(field)));
+		assertThat(cache.translateField("a", "f", "Lc;"), is(FieldEntry.parse("pkg/Foo", "count", "LBar;")));
+
+		MethodEntry method = new MethodEntry(new ClassEntry("a"), "m", new MethodDescriptor("(La;)V"));
+		assertThat(cache.translateMethod("a", "m", "(La;)V"), is(translator.translate(method)));
+		assertThat(cache.translateMethod("a", "m", "(La;)V"), is(MethodEntry.parse("pkg/Foo", "run", "(Lpkg/Foo;)V")));
+
+		// members with the same name but another descriptor are cached separately
+		MethodEntry overload = new MethodEntry(new ClassEntry("a"), "m", new MethodDescriptor("()V"));
+		assertThat(cache.translateMethod("a", "m", "()V"), is(translator.translate(overload)));
+		assertThat(cache.translateMethod("a", "m", "()V").getName(), is("m"));
+	}
+
+	private static EntryTree<EntryMapping> createMappings() {
+		ClassEntry a = new ClassEntry("a");
+
+		EntryTree<EntryMapping> mappings = new HashEntryTree<>();
+		mappings.insert(a, new EntryMapping("pkg/Foo"));
+		mappings.insert(new ClassEntry(a, "b"), new EntryMapping("Inner"));
+		mappings.insert(new ClassEntry("c"), new EntryMapping("Bar"));
+		mappings.insert(new FieldEntry(a, "f", new TypeDescriptor("Lc;")), new EntryMapping("count"));
+		mappings.insert(new MethodEntry(a, "m", new MethodDescriptor("(La;)V")), new EntryMapping("run"));
+		return mappings;
+	}
+}
@@ -0,0 +1,95 @@
+package cuchaz.enigma.analysis;
+
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestClassCache {
+	private static final Path JAR = Paths.get("build/test-obf/inheritanceTree.jar");
+
+	@Test
+	public void cachedWithinBudget() throws Exception {
+		try (ClassCache cache = ClassCache.of(JAR, 1024 * 1024, false)) {
+			ClassNode node = cache.getClassNode("a");
+
+			assertThat(node, is(notNullValue()));
+			assertThat(cache.getClassNode("a"), is(sameInstance(node)));
+			assertThat(cache.getNodeCacheSize(), is(1L));
+			assertThat(cache.getClassNode("missing"), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void pinnedOutsideBudget() throws Exception {
+		// nothing fits into an empty budget, so only pinned nodes are kept
+		try (ClassCache cache = ClassCache.of(JAR, 0, false)) {
+			ClassNode unpinned = cache.getClassNode("a");
+			assertThat(cache.getClassNode("a"), is(not(sameInstance(unpinned))));
+			assertThat(cache.getNodeCacheSize(), is(0L));
+
+			cache.setPinned(Arrays.asList("a", "b", "missing"));
+			assertThat(cache.getPinned(), containsInAnyOrder("a", "b"));
+
+			ClassNode pinned = cache.getClassNode("a");
+			assertThat(cache.getClassNode("a"), is(sameInstance(pinned)));
+			assertThat(cache.getNodeCacheSize(), is(0L));
+
+			// nodes that stay pinned are kept, released ones go back to the cache and are evicted from it at once
+			ClassNode pinnedB = cache.getClassNode("b");
+			cache.setPinned(Collections.singletonList("b"));
+			assertThat(cache.getPinned(), contains("b"));
+			assertThat(cache.getClassNode("b"), is(sameInstance(pinnedB)));
+			assertThat(cache.getClassNode("a"), is(not(sameInstance(pinned))));
+			assertThat(cache.getNodeCacheSize(), is(0L));
+		}
+	}
+
+	@Test
+	public void unpinnedNodesReturnToCache() throws Exception {
+		try (ClassCache cache = ClassCache.of(JAR, 1024 * 1024, false)) {
+			cache.setPinned(Collections.singletonList("a"));
+			ClassNode pinned = cache.getClassNode("a");
+			assertThat(cache.getNodeCacheSize(), is(0L));
+
+			cache.setPinned(Collections.emptyList());
+			assertThat(cache.getPinned(), is(empty()));
+			assertThat(cache.getNodeCacheSize(), is(1L));
+			assertThat(cache.getClassNode("a"), is(sameInstance(pinned)));
+		}
+	}
+
+	@Test
+	public void estimatedSizeGrowsWithContents() {
+		int empty = ClassCache.estimateSize(new ClassNode());
+		assertThat(empty, is(greaterThan(0)));
+
+		ClassNode withField = new ClassNode();
+		withField.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "a", "I", null, null));
+		assertThat(ClassCache.estimateSize(withField), is(greaterThan(empty)));
+
+		MethodNode emptyMethod = new MethodNode(Opcodes.ACC_PUBLIC, "a", "()V", null, null);
+		ClassNode withEmptyMethod = new ClassNode();
+		withEmptyMethod.methods.add(emptyMethod);
+
+		MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC, "a", "()V", null, null);
+		method.instructions.add(new InsnNode(Opcodes.ICONST_0));
+		method.instructions.add(new InsnNode(Opcodes.POP));
+		method.instructions.add(new InsnNode(Opcodes.RETURN));
+		ClassNode withMethod = new ClassNode();
+		withMethod.methods.add(method);
+
+		assertThat(ClassCache.estimateSize(withEmptyMethod), is(greaterThan(empty)));
+		assertThat(ClassCache.estimateSize(withMethod), is(greaterThan(ClassCache.estimateSize(withEmptyMethod))));
+	}
+}
@@ -0,0 +1,103 @@
+package cuchaz.enigma.analysis;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestJarSources {
+
+	@Test
+	public void testJars() throws Exception {
+		List<Path> jars = findTestJars();
+		assertThat(jars, is(not(empty())));
+
+		for (Path jar : jars) {
+			assertSameClasses(jar);
+		}
+	}
+
+	@Test
+	public void storedAndDeflatedEntries() throws Exception {
+		for (Path jar : findTestJars()) {
+			Path repacked = Files.createTempFile("enigma-jar", ".jar");
+			repack(jar, repacked);
+			assertSameClasses(repacked);
+		}
+	}
+
+	private static List<Path> findTestJars() throws Exception {
+		List<Path> jars = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get("build/test-obf"), "*.jar")) {
+			stream.forEach(jars::add);
+		}
+		Collections.sort(jars);
+		return jars;
+	}
+
+	private static void assertSameClasses(Path jar) throws Exception {
+		try (MappedJarSource mapped = MappedJarSource.open(jar); FileSystemJarSource fileSystem = FileSystemJarSource.open(jar)) {
+			assertThat(jar.toString(), mapped, is(notNullValue()));
+			assertThat(jar.toString(), mapped.getClassNames(), is(fileSystem.getClassNames()));
+
+			for (String name : fileSystem.getClassNames()) {
+				assertThat(name, mapped.readClass(name), is(fileSystem.readClass(name)));
+			}
+		}
+	}
+
+	/**
+	 * Copies a jar, alternating between stored and deflated entries.
+	 */
+	private static void repack(Path source, Path target) throws Exception {
+		try (ZipFile zip = new ZipFile(source.toFile()); ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target))) {
+			List<? extends ZipEntry> entries = Collections.list(zip.entries());
+			for (int i = 0; i < entries.size(); i++) {
+				ZipEntry entry = entries.get(i);
+				byte[] bytes = readAll(zip.getInputStream(entry));
+
+				ZipEntry copy = new ZipEntry(entry.getName());
+				if (i % 2 == 0) {
+					CRC32 crc = new CRC32();
+					crc.update(bytes);
+
+					copy.setMethod(ZipEntry.STORED);
+					copy.setSize(bytes.length);
+					copy.setCompressedSize(bytes.length);
+					copy.setCrc(crc.getValue());
+				} else {
+					copy.setMethod(ZipEntry.DEFLATED);
+				}
+
+				out.putNextEntry(copy);
+				out.write(bytes);
+				out.closeEntry();
+			}
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws Exception {
+		try (InputStream input = in) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			for (int count; (count = input.read(buffer)) != -1; ) {
+				bytes.write(buffer, 0, count);
+			}
+			return bytes.toByteArray();
+		}
+	}
+}
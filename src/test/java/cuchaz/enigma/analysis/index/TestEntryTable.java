@@ -0,0 +1,150 @@
+package cuchaz.enigma.analysis.index;
+
+import cuchaz.enigma.translation.representation.AccessFlags;
+import cuchaz.enigma.translation.representation.entry.ClassDefEntry;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestEntryTable {
+
+	@Test
+	public void growth() {
+		EntryTable table = new EntryTable();
+		for (int i = 0; i < 1000; i++) {
+			assertThat(table.id(new ClassEntry("c" + i)), is(i));
+		}
+
+		assertThat(table.size(), is(1000));
+		for (int i = 0; i < 1000; i++) {
+			ClassEntry entry = new ClassEntry("c" + i);
+			assertThat(table.indexOf(entry), is(i));
+			assertThat(table.id(entry), is(i));
+			assertThat(table.<ClassEntry>get(i), is(entry));
+		}
+		assertThat(table.indexOf(new ClassEntry("c1000")), is(-1));
+	}
+
+	@Test
+	public void collidingHashes() {
+		List<String> names = collidingNames(8);
+		for (String name : names) {
+			assertThat(name.hashCode(), is(names.get(0).hashCode()));
+		}
+
+		// only add every other name, so that lookups of the others have to probe past colliding entries
+		EntryTable table = new EntryTable();
+		for (int i = 0; i < names.size(); i += 2) {
+			assertThat(table.id(new ClassEntry(names.get(i))), is(i / 2));
+		}
+
+		assertThat(table.size(), is(names.size() / 2));
+		for (int i = 0; i < names.size(); i++) {
+			ClassEntry entry = new ClassEntry(names.get(i));
+			if (i % 2 == 0) {
+				assertThat(table.indexOf(entry), is(i / 2));
+				assertThat(table.<ClassEntry>get(i / 2), is(entry));
+			} else {
+				assertThat(table.indexOf(entry), is(-1));
+			}
+		}
+	}
+
+	@Test
+	public void definitionsKeepTheirOwnIds() {
+		EntryTable table = new EntryTable();
+		ClassEntry entry = new ClassEntry("a");
+		ClassDefEntry definition = classDef("a", 1);
+
+		assertThat(table.id(entry), is(0));
+		assertThat(table.id(definition), is(1));
+		assertThat(table.<ClassEntry>get(1), is(sameInstance(definition)));
+
+		// equality lookups find whichever was added first
+		assertThat(table.indexOf(definition), is(0));
+
+		int[] slotsById = table.newSlotsById();
+		slotsById[1] = 7;
+		assertThat(table.findSlot(entry, slotsById), is(7));
+		assertThat(table.findSlot(new ClassEntry("b"), slotsById), is(-1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void frozen() {
+		EntryTable table = new EntryTable();
+		table.id(new ClassEntry("a"));
+		table.freeze();
+
+		assertThat(table.indexOf(new ClassEntry("a")), is(0));
+		table.id(new ClassEntry("b"));
+	}
+
+	@Test
+	public void reindexUpdatesAccess() {
+		EntryIndex index = new EntryIndex();
+		index.indexClass(classDef("a", 1));
+		index.indexClass(classDef("b", 2));
+		index.indexClass(classDef("a", 3));
+
+		assertThat(index.getClasses(), contains(new ClassEntry("a"), new ClassEntry("b")));
+		assertThat(index.getClassAccess(new ClassEntry("a")), is(new AccessFlags(3)));
+		assertThat(index.getClassAccess(new ClassEntry("b")), is(new AccessFlags(2)));
+	}
+
+	@Test
+	public void accessGrowsWithTheTable() {
+		EntryIndex index = new EntryIndex();
+		for (int i = 0; i < 1000; i++) {
+			index.indexClass(classDef("c" + i, i));
+		}
+
+		assertThat(index.getClasses().size(), is(1000));
+		for (int i = 0; i < 1000; i++) {
+			assertThat(index.getClassAccess(new ClassEntry("c" + i)), is(new AccessFlags(i)));
+		}
+	}
+
+	@Test
+	public void merge() {
+		EntryIndex first = new EntryIndex();
+		first.indexClass(classDef("a", 1));
+		first.indexClass(classDef("b", 1));
+
+		EntryIndex second = new EntryIndex();
+		second.indexClass(classDef("b", 2));
+		second.indexClass(classDef("c", 2));
+
+		first.merge(second);
+
+		assertThat(first.getClasses(), containsInAnyOrder(new ClassEntry("a"), new ClassEntry("b"), new ClassEntry("c")));
+		assertThat(first.getClassAccess(new ClassEntry("a")), is(new AccessFlags(1)));
+		assertThat(first.getClassAccess(new ClassEntry("b")), is(new AccessFlags(2)));
+		assertThat(first.getClassAccess(new ClassEntry("c")), is(new AccessFlags(2)));
+	}
+
+	/**
+	 * Every string made of the same number of "Aa" and "BB" blocks has the same hash code.
+	 */
+	private static List<String> collidingNames(int blocks) {
+		List<String> names = new ArrayList<>();
+		names.add("");
+		for (int i = 0; i < blocks; i++) {
+			List<String> longer = new ArrayList<>(names.size() * 2);
+			for (String name : names) {
+				longer.add(name + "Aa");
+				longer.add(name + "BB");
+			}
+			names = longer;
+		}
+		return names;
+	}
+
+	private static ClassDefEntry classDef(String name, int access) {
+		return ClassDefEntry.parse(access, name, null, "java/lang/Object", new String[0]);
+	}
+}
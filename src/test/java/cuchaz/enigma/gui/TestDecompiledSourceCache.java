@@ -0,0 +1,73 @@
+package cuchaz.enigma.gui;
+
+import com.google.common.base.Strings;
+import cuchaz.enigma.analysis.SourceIndex;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestDecompiledSourceCache {
+	private static final ClassEntry A = new ClassEntry("a");
+	private static final ClassEntry B = new ClassEntry("b");
+
+	@Test
+	public void keyedBySettings() {
+		DecompiledSourceCache cache = new DecompiledSourceCache(1024 * 1024);
+		SourceIndex first = new SourceIndex("first");
+		SourceIndex second = new SourceIndex("second");
+
+		cache.put(A, "settings", first);
+		cache.put(A, "other", second);
+
+		assertThat(cache.get(A, "settings"), is(sameInstance(first)));
+		assertThat(cache.get(A, "other"), is(sameInstance(second)));
+		assertThat(cache.get(A, "missing"), is(nullValue()));
+		assertThat(cache.get(B, "settings"), is(nullValue()));
+		assertThat(cache.contains(A, "other"), is(true));
+		assertThat(cache.contains(B, "other"), is(false));
+		assertThat(cache.size(), is(2L));
+
+		assertThat(cache.getStats().hitCount(), is(2L));
+		assertThat(cache.getStats().missCount(), is(2L));
+	}
+
+	@Test
+	public void evictsByWeight() {
+		// every source weighs 200 bytes, so at most five fit
+		DecompiledSourceCache cache = new DecompiledSourceCache(1000);
+		for (int i = 0; i < 20; i++) {
+			cache.put(new ClassEntry("c" + i), "settings", source(100));
+		}
+
+		assertThat(cache.size(), is(both(greaterThan(0L)).and(lessThanOrEqualTo(5L))));
+		assertThat(cache.contains(new ClassEntry("c19"), "settings"), is(true));
+		assertThat(cache.getStats().evictionCount(), is(20L - cache.size()));
+	}
+
+	@Test
+	public void evictsSourcesLargerThanTheCache() {
+		DecompiledSourceCache cache = new DecompiledSourceCache(1000);
+		cache.put(A, "settings", source(1000));
+
+		assertThat(cache.contains(A, "settings"), is(false));
+	}
+
+	@Test
+	public void invalidateAll() {
+		DecompiledSourceCache cache = new DecompiledSourceCache(1024 * 1024);
+		cache.put(A, "settings", new SourceIndex("a"));
+		cache.put(B, "other", new SourceIndex("b"));
+
+		cache.invalidateAll();
+
+		assertThat(cache.size(), is(0L));
+		assertThat(cache.get(A, "settings"), is(nullValue()));
+		assertThat(cache.get(B, "other"), is(nullValue()));
+	}
+
+	private static SourceIndex source(int length) {
+		return new SourceIndex(Strings.repeat("x", length));
+	}
+}
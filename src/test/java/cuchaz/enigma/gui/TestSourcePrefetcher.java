@@ -0,0 +1,177 @@
+package cuchaz.enigma.gui;
+
+import cuchaz.enigma.analysis.SourceIndex;
+import cuchaz.enigma.translation.representation.entry.ClassEntry;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestSourcePrefetcher {
+	private static final String SETTINGS = "settings";
+
+	private static final ClassEntry BLOCKING = new ClassEntry("blocking");
+	private static final ClassEntry A = new ClassEntry("a");
+	private static final ClassEntry B = new ClassEntry("b");
+
+	private final DecompiledSourceCache cache = new DecompiledSourceCache(1024 * 1024);
+	private final RecordingDecompiler decompiler = new RecordingDecompiler();
+
+	@Test
+	public void prefetchFillsCache() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 2);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.prefetch(Arrays.asList(A, B));
+
+		awaitCached(A);
+		awaitCached(B);
+		assertThat(decompiler.decompiled, containsInAnyOrder(A, B));
+	}
+
+	@Test
+	public void queuedPrefetchIsHandedOver() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 1);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.prefetch(Arrays.asList(BLOCKING, A));
+		await(decompiler.blockingStarted);
+
+		// the prefetch of a is still queued behind the blocking one, so the user takes it over
+		assertThat(prefetcher.beginUserDecompile(A), is(nullValue()));
+		decompiler.release.countDown();
+		prefetcher.endUserDecompile();
+
+		// with a single prefetch thread, b only runs once everything queued before it is done
+		prefetcher.prefetch(Collections.singletonList(B));
+		awaitCached(B);
+
+		assertThat(decompiler.decompiled, contains(BLOCKING, B));
+	}
+
+	@Test
+	public void runningPrefetchIsAwaited() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 1);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.prefetch(Collections.singletonList(BLOCKING));
+		await(decompiler.blockingStarted);
+
+		AtomicReference<SourceIndex> result = new AtomicReference<>();
+		Thread user = new Thread(() -> {
+			try {
+				result.set(prefetcher.beginUserDecompile(BLOCKING));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				prefetcher.endUserDecompile();
+			}
+		});
+		user.start();
+
+		// only release the prefetch once the user is waiting for it
+		awaitCondition(() -> user.getState() == Thread.State.WAITING);
+		decompiler.release.countDown();
+		user.join(5000);
+
+		assertThat(result.get(), is(notNullValue()));
+		assertThat(result.get().getSource(), is(BLOCKING.getFullName()));
+		assertThat(decompiler.decompiled, contains(BLOCKING));
+	}
+
+	@Test
+	public void userDecompileGatesPrefetches() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 2);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.beginUserDecompile(B);
+		prefetcher.prefetch(Collections.singletonList(A));
+
+		Thread.sleep(200);
+		assertThat(decompiler.decompiled, is(empty()));
+
+		prefetcher.endUserDecompile();
+		awaitCached(A);
+	}
+
+	@Test
+	public void cancelAllDropsQueuedAndRunningPrefetches() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 1);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.prefetch(Arrays.asList(BLOCKING, A));
+		await(decompiler.blockingStarted);
+
+		prefetcher.cancelAll();
+		prefetcher.prefetch(Collections.singletonList(B));
+		decompiler.release.countDown();
+
+		// a new session on the same single thread only starts once the cancelled one is done
+		prefetcher.open(decompiler, "other");
+		prefetcher.prefetch(Collections.singletonList(B));
+		awaitCondition(() -> cache.contains(B, "other"));
+
+		assertThat(decompiler.decompiled, contains(BLOCKING, B));
+		assertThat(cache.contains(BLOCKING, SETTINGS), is(false));
+		assertThat(cache.contains(A, SETTINGS), is(false));
+		assertThat(cache.contains(B, SETTINGS), is(false));
+	}
+
+	@Test
+	public void noPrefetchesWithoutSpareCores() throws Exception {
+		SourcePrefetcher prefetcher = new SourcePrefetcher(cache, 0);
+		prefetcher.open(decompiler, SETTINGS);
+
+		prefetcher.prefetch(Collections.singletonList(A));
+
+		Thread.sleep(200);
+		assertThat(decompiler.decompiled, is(empty()));
+	}
+
+	private void awaitCached(ClassEntry classEntry) throws InterruptedException {
+		awaitCondition(() -> cache.contains(classEntry, SETTINGS));
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("Timed out waiting for the prefetcher");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) throws InterruptedException {
+		assertThat("Timed out waiting for the prefetcher", latch.await(5, TimeUnit.SECONDS), is(true));
+	}
+
+	/**
+	 * Records every class it decompiles, using the class name as the source. Decompiling {@link #BLOCKING} waits
+	 * until it is released.
+	 */
+	private static final class RecordingDecompiler implements SourcePrefetcher.Decompiler {
+		private final List<ClassEntry> decompiled = new CopyOnWriteArrayList<>();
+		private final CountDownLatch blockingStarted = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public SourceIndex decompile(ClassEntry classEntry) throws Exception {
+			decompiled.add(classEntry);
+			if (classEntry.equals(BLOCKING)) {
+				blockingStarted.countDown();
+				release.await();
+			}
+			return new SourceIndex(classEntry.getFullName());
+		}
+	}
+}